@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.SlowSelectionDetector;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.text.JTextComponent;
+import org.openide.util.RequestProcessor;
+
+/**
+ * State of the Extend Selection action kept per editor as a client property, so split panes, clones and several
+ * windows never see each other's direction or presses, and the state goes away with the editor. The fields written
+ * outside the event dispatch thread are atomic; the press itself is handed from the compute to the apply step as an
+ * immutable {@link SelectionPlan}.
+ *
+ * @author Arthur Sadykov
+ */
+final class EditorSelectionState {
+
+    private static final Object KEY = EditorSelectionState.class;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<Runnable> pendingApply = new AtomicReference<>();
+    private final SelectionHistory history = new SelectionHistory();
+    private RequestProcessor.Task task;
+    private SlowSelectionDetector.Watch watch;
+    private SelectionTiming lastTiming;
+    private Direction direction = Direction.BACKWARD;
+
+    private EditorSelectionState() {
+    }
+
+    /**
+     * Returns the state of the editor, creating it on the first press. Must be called in the event dispatch thread.
+     */
+    static EditorSelectionState get(JTextComponent editor) {
+        Object state = editor.getClientProperty(KEY);
+        if (state instanceof EditorSelectionState) {
+            return (EditorSelectionState) state;
+        }
+        EditorSelectionState newState = new EditorSelectionState();
+        editor.putClientProperty(KEY, newState);
+        return newState;
+    }
+
+    /**
+     * @return the generation of the press, which is compared with the current generation to find out if the press
+     * has been abandoned
+     */
+    int nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    boolean isCurrentGeneration(int pressGeneration) {
+        return pressGeneration == generation.get();
+    }
+
+    AtomicReference<Runnable> getPendingApply() {
+        return pendingApply;
+    }
+
+    SelectionHistory getHistory() {
+        return history;
+    }
+
+    RequestProcessor.Task getTask() {
+        return task;
+    }
+
+    void setTask(RequestProcessor.Task task) {
+        this.task = task;
+    }
+
+    /**
+     * @return the watch of the last press or {@code null}
+     */
+    SlowSelectionDetector.Watch getWatch() {
+        return watch;
+    }
+
+    void setWatch(SlowSelectionDetector.Watch watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Cancels the task and the watch of the last press, if they are still running.
+     */
+    void cancelPress() {
+        if (task != null) {
+            task.cancel();
+        }
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+    }
+
+    SelectionTiming getLastTiming() {
+        return lastTiming;
+    }
+
+    void setLastTiming(SelectionTiming lastTiming) {
+        this.lastTiming = lastTiming;
+    }
+
+    Direction getDirection() {
+        return direction;
+    }
+
+    void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import java.util.Optional;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Tells the Java documents, the only ones the Extend Selection and Shrink Selection actions handle, from the others.
+ *
+ * @author Arthur Sadykov
+ */
+final class JavaDocuments {
+
+    private static final String MIME_TYPE = "mimeType"; //NOI18N
+    private static final String JAVA_MIME_TYPE = "text/x-java"; //NOI18N
+
+    private JavaDocuments() {
+    }
+
+    static boolean mimeTypeOfEditorDocumentIsJava(JTextComponent editor) {
+        return getMimeTypeOfEditorDocument(editor).map(mt -> mt.equals(JAVA_MIME_TYPE)).orElse(false);
+    }
+
+    private static Optional<String> getMimeTypeOfEditorDocument(JTextComponent editor) {
+        return Optional.ofNullable((String) editor.getDocument().getProperty(MIME_TYPE));
+    }
+}
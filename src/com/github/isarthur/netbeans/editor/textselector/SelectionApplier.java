@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Caret;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import org.netbeans.api.editor.caret.CaretInfo;
+import org.netbeans.api.editor.caret.EditorCaret;
+
+/**
+ * Applies a selected range to an editor with a single caret change, so the caret listeners of the editor (mark
+ * occurrences, breadcrumbs, navigator) are notified once per press. The dot ends at the start of a backward range and
+ * at the end of a forward one. Must be called in the event dispatch thread.
+ * <p>
+ * Only an {@link EditorCaret} can set the dot and the mark at once. Any other caret falls back to
+ * {@link Caret#setDot(int)} and {@link Caret#moveDot(int)}, which notifies the caret listeners twice per press.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionApplier {
+
+    private static final Logger LOG = Logger.getLogger(SelectionApplier.class.getName());
+
+    private SelectionApplier() {
+    }
+
+    public static void select(JTextComponent editor, int start, int end, Direction direction) {
+        int dot = direction == Direction.BACKWARD ? start : end;
+        int mark = direction == Direction.BACKWARD ? end : start;
+        Caret caret = editor.getCaret();
+        if (caret instanceof EditorCaret) {
+            Document document = editor.getDocument();
+            Position dotPosition;
+            Position markPosition;
+            try {
+                dotPosition = document.createPosition(dot);
+                markPosition = document.createPosition(mark);
+            } catch (BadLocationException ex) {
+                LOG.log(Level.FINE, null, ex);
+                return;
+            }
+            ((EditorCaret) caret).moveCarets(context -> {
+                CaretInfo caretInfo = context.getOriginalLastCaret();
+                context.setDotAndMark(
+                        caretInfo, dotPosition, Position.Bias.Forward, markPosition, Position.Bias.Forward);
+            });
+        } else if (caret != null) {
+            // Two caret events: javax.swing.text.Caret cannot set the dot and the mark in one call.
+            caret.setDot(mark);
+            caret.moveDot(dot);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.cache.SelectionLadder;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.SelectionEvents;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.util.function.BooleanSupplier;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenId;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * Computes extend selection steps, either from the tokens of the document or inside a parser task. Used both by the
+ * Extend Selection action and by the background prefetch, so a prefetched ladder is exactly what pressing the action
+ * would have produced.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionEngine {
+
+    private static final int MAX_LADDER_SIZE = 64;
+
+    private SelectionEngine() {
+    }
+
+    /**
+     * Computes the whole ladder for a caret without selection. The cancellation is checked before each level.
+     *
+     * @return the ladder or {@code null} if the computation has been cancelled
+     */
+    public static SelectionLadder computeLadder(CompilationController controller, int caretPosition,
+            BooleanSupplier cancelled) {
+        Direction direction = resolveDirection(controller.getTokenHierarchy().tokenSequence(), caretPosition);
+        SelectionLadder.Builder ladder =
+                new SelectionLadder.Builder(caretPosition, caretPosition, caretPosition, direction);
+        SelectionRange range = selectNext(controller, caretPosition, caretPosition, caretPosition, direction);
+        if (range == null) {
+            return ladder.complete().build();
+        }
+        ladder.add(range.getStart(), range.getEnd());
+        completeLadder(controller, ladder, range, cancelled);
+        return cancelled.getAsBoolean() ? null : ladder.build();
+    }
+
+    /**
+     * Adds the levels following the given range to the ladder until the selection stops growing.
+     */
+    public static void completeLadder(CompilationController controller, SelectionLadder.Builder ladder,
+            SelectionRange range) {
+        completeLadder(controller, ladder, range, () -> false);
+    }
+
+    /**
+     * Adds the levels following the given range to the ladder until the selection stops growing or the computation
+     * is cancelled. The cancellation is checked before each level.
+     */
+    public static void completeLadder(CompilationController controller, SelectionLadder.Builder ladder,
+            SelectionRange range, BooleanSupplier cancelled) {
+        SelectionRange current = range;
+        while (!current.isEmpty() && ladder.size() < MAX_LADDER_SIZE && !cancelled.getAsBoolean()) {
+            SelectionRange next = selectNext(
+                    controller, current.getStart(), current.getEnd(), current.getDot(), current.getDirection());
+            if (next == null || ladder.contains(next.getStart(), next.getEnd())) {
+                ladder.complete();
+                return;
+            }
+            ladder.add(next.getStart(), next.getEnd());
+            current = next;
+        }
+    }
+
+    public static SelectionRange selectNext(CompilationController controller, int selectionStart, int selectionEnd,
+            int caretPosition, Direction direction) {
+        TokenSequence<?> tokenSequence = controller.getTokenHierarchy().tokenSequence();
+        tokenSequence.move(caretPosition);
+        boolean moved = direction == Direction.BACKWARD ? tokenSequence.movePrevious() : tokenSequence.moveNext();
+        if (!moved) {
+            return null;
+        }
+        SelectionContext context =
+                new SelectionContext(tokenSequence, selectionStart, selectionEnd, caretPosition, direction, controller);
+        return select(SelectionFactory.getStrategy(tokenSequence), context);
+    }
+
+    /**
+     * Computes the next step from the tokens alone, without a syntax tree.
+     *
+     * @return the selected range or {@code null} if the step requires the syntax tree
+     * @see SelectionFactory#getLexicalStrategy
+     */
+    public static SelectionRange selectNextLexically(TokenHierarchy<?> tokenHierarchy, int selectionStart,
+            int selectionEnd, int caretPosition, Direction direction) {
+        SelectionContext context =
+                createContext(tokenHierarchy, null, selectionStart, selectionEnd, caretPosition, direction);
+        if (context == null) {
+            return null;
+        }
+        SelectionStrategy strategy = SelectionFactory.getLexicalStrategy(context);
+        if (strategy == null) {
+            return null;
+        }
+        return select(strategy, context);
+    }
+
+    /**
+     * Computes the next step from a span index loaded from the persistent cache instead of a parser result.
+     *
+     * @return the selected range or {@code null} if the step requires the parser
+     * @see SelectionFactory#getIndexedStrategy
+     */
+    public static SelectionRange selectNextFromIndex(TokenHierarchy<?> tokenHierarchy, SpanIndex spanIndex,
+            int selectionStart, int selectionEnd, int caretPosition, Direction direction) {
+        SelectionContext context =
+                createContext(tokenHierarchy, spanIndex, selectionStart, selectionEnd, caretPosition, direction);
+        if (context == null) {
+            return null;
+        }
+        SelectionStrategy strategy = SelectionFactory.getIndexedStrategy(context);
+        if (strategy == null) {
+            return null;
+        }
+        return select(strategy, context);
+    }
+
+    /**
+     * @return the token the next step starts from or {@code null} if there is none in the direction of the step
+     */
+    public static TokenId getTokenId(TokenSequence<?> tokenSequence, int caretPosition, Direction direction) {
+        tokenSequence.move(caretPosition);
+        boolean moved = direction == Direction.BACKWARD ? tokenSequence.movePrevious() : tokenSequence.moveNext();
+        return moved ? tokenSequence.token().id() : null;
+    }
+
+    private static SelectionRange select(SelectionStrategy strategy, SelectionContext context) {
+        TokenId tokenId = context.getTokenSequence().token().id();
+        Object event = SelectionEvents.beginStep();
+        strategy.select(context);
+        SelectionEvents.stepSelected(event, tokenId, strategy, context);
+        return context.getSelectedRange();
+    }
+
+    private static SelectionContext createContext(TokenHierarchy<?> tokenHierarchy, SpanIndex spanIndex,
+            int selectionStart, int selectionEnd, int caretPosition, Direction direction) {
+        TokenSequence<?> tokenSequence = tokenHierarchy.tokenSequence();
+        if (tokenSequence == null) {
+            return null;
+        }
+        tokenSequence.move(caretPosition);
+        boolean moved = direction == Direction.BACKWARD ? tokenSequence.movePrevious() : tokenSequence.moveNext();
+        if (!moved) {
+            return null;
+        }
+        return new SelectionContext(tokenSequence, selectionStart, selectionEnd, caretPosition, direction,
+                tokenHierarchy, spanIndex);
+    }
+
+    /**
+     * Chooses the direction of the first press from the token preceding the caret.
+     */
+    public static Direction resolveDirection(TokenSequence<?> tokenSequence, int caretPosition) {
+        tokenSequence.move(caretPosition);
+        if (tokenSequence.movePrevious()) {
+            TokenId id = tokenSequence.token().id();
+            if (id == JavaTokenId.WHITESPACE || id == JavaTokenId.LPAREN || id == JavaTokenId.DOT) {
+                return Direction.FORWARD;
+            }
+            return Direction.BACKWARD;
+        }
+        return Direction.FORWARD;
+    }
+}
@@ -15,148 +15,159 @@
  */
 package com.github.isarthur.netbeans.editor.textselector;
 
-import com.github.isarthur.netbeans.editor.textselector.exception.UnsupportedTokenException;
-import com.github.isarthur.netbeans.editor.textselector.selection.ExpressionSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.BlockSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.BlockStatementSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.CommentSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.EnclosedExpressionSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.EnclosingNodeSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.ExpressionSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.IdentifierSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.IfStmtSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.LiteralSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.ModifierSelection;
-import com.github.isarthur.netbeans.editor.textselector.selection.Selection;
 import com.github.isarthur.netbeans.editor.textselector.selection.SemicolonSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.SeparatorTokenSelection;
-import com.github.isarthur.netbeans.editor.textselector.selection.TryStmtSelection;
 import com.github.isarthur.netbeans.editor.textselector.selection.StatementSelection;
-import com.github.isarthur.netbeans.editor.textselector.selection.BlockStatementSelection;
-import javax.swing.text.JTextComponent;
+import com.github.isarthur.netbeans.editor.textselector.selection.TryStmtSelection;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.util.EnumMap;
+import java.util.Map;
+import org.netbeans.api.editor.mimelookup.MimeLookup;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
 import org.netbeans.api.lexer.TokenId;
 import org.netbeans.api.lexer.TokenSequence;
+import org.openide.util.Lookup;
 
 /**
+ * Maps tokens to the {@link SelectionStrategy} selecting them. The built-in strategies are always available, the
+ * strategies registered in the MIME lookup of Java sources are looked up on the first use and again whenever the
+ * registrations change. The tokens without a strategy are selected by {@link EnclosingNodeSelection}.
  *
  * @author Arthur Sadykov
  */
 public class SelectionFactory {
 
+    private static final String JAVA_MIME_TYPE = "text/x-java"; //NOI18N
+    private static final SeparatorTokenSelection SEPARATOR_TOKEN_SELECTION = new SeparatorTokenSelection();
+    private static final ModifierSelection MODIFIER_SELECTION = new ModifierSelection();
+    private static final LiteralSelection LITERAL_SELECTION = new LiteralSelection();
+    private static final CommentSelection COMMENT_SELECTION = new CommentSelection();
+    private static final EnclosingNodeSelection ENCLOSING_NODE_SELECTION = new EnclosingNodeSelection();
+    private static final Map<JavaTokenId, SelectionStrategy> BUILTIN_STRATEGIES = createBuiltinStrategies();
+    private static Lookup.Result<SelectionStrategy> registeredStrategies;
+    private static volatile Map<JavaTokenId, SelectionStrategy> strategies;
+
     private SelectionFactory() {
     }
 
-    public static Selection create(JTextComponent editor, TokenSequence<?> ts, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) throws UnsupportedTokenException {
-        TokenId id = ts.token().id();
-        if (id == JavaTokenId.AMP
-                || id == JavaTokenId.AMPAMP
-                || id == JavaTokenId.AMPEQ
-                || id == JavaTokenId.BANG
-                || id == JavaTokenId.BANGEQ
-                || id == JavaTokenId.BAR
-                || id == JavaTokenId.BARBAR
-                || id == JavaTokenId.BAREQ
-                || id == JavaTokenId.BOOLEAN
-                || id == JavaTokenId.BYTE
-                || id == JavaTokenId.CARET
-                || id == JavaTokenId.CARETEQ
-                || id == JavaTokenId.CHAR
-                || id == JavaTokenId.CLASS
-                || id == JavaTokenId.DOUBLE
-                || id == JavaTokenId.ENUM
-                || id == JavaTokenId.EQ
-                || id == JavaTokenId.EQEQ
-                || id == JavaTokenId.EXTENDS
-                || id == JavaTokenId.FLOAT
-                || id == JavaTokenId.GT
-                || id == JavaTokenId.GTEQ
-                || id == JavaTokenId.GTGT
-                || id == JavaTokenId.GTGTEQ
-                || id == JavaTokenId.GTGTGT
-                || id == JavaTokenId.GTGTGTEQ
-                || id == JavaTokenId.IMPLEMENTS
-                || id == JavaTokenId.INT
-                || id == JavaTokenId.INTERFACE
-                || id == JavaTokenId.LONG
-                || id == JavaTokenId.LT
-                || id == JavaTokenId.LTEQ
-                || id == JavaTokenId.LTLT
-                || id == JavaTokenId.LTLTEQ
-                || id == JavaTokenId.MINUS
-                || id == JavaTokenId.MINUSEQ
-                || id == JavaTokenId.MINUSMINUS
-                || id == JavaTokenId.PERCENT
-                || id == JavaTokenId.PERCENTEQ
-                || id == JavaTokenId.PLUS
-                || id == JavaTokenId.PLUSEQ
-                || id == JavaTokenId.PLUSPLUS
-                || id == JavaTokenId.SHORT
-                || id == JavaTokenId.SLASH
-                || id == JavaTokenId.SLASHEQ
-                || id == JavaTokenId.STAR
-                || id == JavaTokenId.STAREQ
-                || id == JavaTokenId.THROWS
-                || id == JavaTokenId.TILDE
-                || id == JavaTokenId.VOID) {
-            return new ExpressionSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.COMMA
-                || id == JavaTokenId.DOT
-                || id == JavaTokenId.WHITESPACE) {
-            return new SeparatorTokenSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.LBRACE
-                || id == JavaTokenId.RBRACE) {
-            return new BlockSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.IDENTIFIER) {
-            return new IdentifierSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.LPAREN
-                || id == JavaTokenId.RPAREN) {
-            return new EnclosedExpressionSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.SEMICOLON) {
-            return new SemicolonSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.STRING_LITERAL
-                || id == JavaTokenId.INT_LITERAL
-                || id == JavaTokenId.LONG_LITERAL
-                || id == JavaTokenId.DOUBLE_LITERAL
-                || id == JavaTokenId.FLOAT_LITERAL
-                || id == JavaTokenId.CHAR_LITERAL
-                || id == JavaTokenId.FALSE
-                || id == JavaTokenId.TRUE
-                || id == JavaTokenId.NULL) {
-            return new LiteralSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.ABSTRACT
-                || id == JavaTokenId.DEFAULT
-                || id == JavaTokenId.FINAL
-                || id == JavaTokenId.NATIVE
-                || id == JavaTokenId.PRIVATE
-                || id == JavaTokenId.PROTECTED
-                || id == JavaTokenId.PUBLIC
-                || id == JavaTokenId.STATIC
-                || id == JavaTokenId.STRICTFP
-                || id == JavaTokenId.SYNCHRONIZED
-                || id == JavaTokenId.TRANSIENT
-                || id == JavaTokenId.TRANSITIVE
-                || id == JavaTokenId.VOLATILE) {
-            return new ModifierSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.IF
-                || id == JavaTokenId.ELSE) {
-            return new IfStmtSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.TRY
-                || id == JavaTokenId.CATCH
-                || id == JavaTokenId.FINALLY) {
-            return new TryStmtSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.ASSERT
-                || id == JavaTokenId.IMPORT
-                || id == JavaTokenId.PACKAGE
-                || id == JavaTokenId.RETURN
-                || id == JavaTokenId.THROW) {
-            return new StatementSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else if (id == JavaTokenId.DO
-                || id == JavaTokenId.WHILE
-                || id == JavaTokenId.FOR
-                || id == JavaTokenId.SWITCH) {
-            return new BlockStatementSelection(editor, ts, selectionStart, selectionEnd, direction, controller);
-        } else {
-            throw new UnsupportedTokenException(
-                    "TokenSelectionFactory.create: unsupported token '" + ts.token().text() + "'."); //NOI18N
+    public static SelectionStrategy getStrategy(TokenSequence<?> ts) {
+        SelectionStrategy strategy = findStrategy(ts.token().id());
+        return strategy != null ? strategy : ENCLOSING_NODE_SELECTION;
+    }
+
+    /**
+     * @return the strategy selecting the token, the fallback for the Java tokens without a strategy, or {@code null}
+     * if the token is not a Java token
+     */
+    public static SelectionStrategy findStrategy(TokenId id) {
+        return id instanceof JavaTokenId
+                ? getStrategies().getOrDefault((JavaTokenId) id, ENCLOSING_NODE_SELECTION)
+                : null;
+    }
+
+    /**
+     * Returns the strategy for the token at the current position of the token sequence of the context if the step
+     * can be computed from the tokens alone, i.e. without a syntax tree. Separators are skipped in the direction of
+     * the context first. The token is resolved through the same table as {@link #findStrategy}, so a registered
+     * strategy taking over a lexical token is left to the parser.
+     *
+     * @return the strategy or {@code null} if the token requires the syntax tree
+     */
+    public static SelectionStrategy getLexicalStrategy(SelectionContext context) {
+        if (!SEPARATOR_TOKEN_SELECTION.skipSeparators(context)) {
+            return null;
+        }
+        TokenId id = context.getTokenSequence().token().id();
+        if (!(id instanceof JavaTokenId)) {
+            return null;
+        }
+        SelectionStrategy strategy = getStrategies().get((JavaTokenId) id);
+        if (strategy == MODIFIER_SELECTION) {
+            return MODIFIER_SELECTION;
+        } else if (strategy == LITERAL_SELECTION && LITERAL_SELECTION.isCaretInsideStringLiteral(context)) {
+            return LITERAL_SELECTION;
+        } else if (strategy == COMMENT_SELECTION && COMMENT_SELECTION.isCommentUnselected(context)) {
+            return COMMENT_SELECTION;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the built-in strategy for the token at the current position of the token sequence of the context, for
+     * steps computed from a persisted span index instead of a parser result. Separators are skipped first. Registered
+     * strategies may need the controller, so the tokens they take over are left to the parser.
+     *
+     * @return the strategy or {@code null} if the step requires the parser
+     */
+    public static SelectionStrategy getIndexedStrategy(SelectionContext context) {
+        if (!SEPARATOR_TOKEN_SELECTION.skipSeparators(context)) {
+            return null;
+        }
+        TokenId id = context.getTokenSequence().token().id();
+        if (!(id instanceof JavaTokenId)) {
+            return null;
+        }
+        SelectionStrategy strategy = getStrategies().get((JavaTokenId) id);
+        if (strategy == null) {
+            return ENCLOSING_NODE_SELECTION;
+        }
+        return strategy == BUILTIN_STRATEGIES.get((JavaTokenId) id) ? strategy : null;
+    }
+
+    private static Map<JavaTokenId, SelectionStrategy> getStrategies() {
+        Map<JavaTokenId, SelectionStrategy> result = strategies;
+        if (result == null) {
+            synchronized (SelectionFactory.class) {
+                result = strategies;
+                if (result == null) {
+                    if (registeredStrategies == null) {
+                        registeredStrategies =
+                                MimeLookup.getLookup(JAVA_MIME_TYPE).lookupResult(SelectionStrategy.class);
+                        registeredStrategies.addLookupListener(event -> strategies = null);
+                    }
+                    result = new EnumMap<>(BUILTIN_STRATEGIES);
+                    for (SelectionStrategy strategy : registeredStrategies.allInstances()) {
+                        register(result, strategy);
+                    }
+                    strategies = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<JavaTokenId, SelectionStrategy> createBuiltinStrategies() {
+        Map<JavaTokenId, SelectionStrategy> result = new EnumMap<>(JavaTokenId.class);
+        register(result, new ExpressionSelection());
+        register(result, SEPARATOR_TOKEN_SELECTION);
+        register(result, new BlockSelection());
+        register(result, new IdentifierSelection());
+        register(result, new EnclosedExpressionSelection());
+        register(result, new SemicolonSelection());
+        register(result, LITERAL_SELECTION);
+        register(result, MODIFIER_SELECTION);
+        register(result, COMMENT_SELECTION);
+        register(result, new IfStmtSelection());
+        register(result, new TryStmtSelection());
+        register(result, new StatementSelection());
+        register(result, new BlockStatementSelection());
+        return result;
+    }
+
+    private static void register(Map<JavaTokenId, SelectionStrategy> strategies, SelectionStrategy strategy) {
+        for (JavaTokenId id : strategy.getTokenIds()) {
+            strategies.put(id, strategy);
         }
     }
 }
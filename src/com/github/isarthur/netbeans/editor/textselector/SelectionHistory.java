@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+
+/**
+ * Ring buffer of the selections an editor had before its last Extend Selection presses, used by the Shrink Selection
+ * action. Each entry is packed into a long: the start in the upper 32 bits, then the end and the direction in the
+ * lowest bit. The oldest entries are overwritten once {@value #CAPACITY} entries are kept, and all entries are dropped
+ * when the document changes. Must be used in the event dispatch thread.
+ *
+ * @author Arthur Sadykov
+ */
+final class SelectionHistory {
+
+    static final long NONE = -1;
+    private static final int CAPACITY = 64;
+    private final long[] entries = new long[CAPACITY];
+    private int top;
+    private int size;
+    private long version = -1;
+
+    void push(long documentVersion, int start, int end, Direction direction) {
+        if (documentVersion != version) {
+            clear();
+            version = documentVersion;
+        }
+        entries[top] = ((long) start << 32) | ((long) end << 1) | (direction == Direction.BACKWARD ? 1 : 0);
+        top = (top + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    /**
+     * @return the last entry pushed for the given version of the document or {@link #NONE}
+     */
+    long pop(long documentVersion) {
+        if (documentVersion != version || size == 0) {
+            clear();
+            return NONE;
+        }
+        top = (top + CAPACITY - 1) % CAPACITY;
+        size--;
+        return entries[top];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    static int getStart(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int getEnd(long entry) {
+        return (int) (entry & 0xFFFFFFFFL) >>> 1;
+    }
+
+    static Direction getDirection(long entry) {
+        return (entry & 1) != 0 ? Direction.BACKWARD : Direction.FORWARD;
+    }
+}
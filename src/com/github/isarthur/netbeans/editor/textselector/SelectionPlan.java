@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import javax.swing.text.Document;
+import org.netbeans.api.lexer.TokenId;
+
+/**
+ * Immutable outcome of an Extend Selection press computed outside the event dispatch thread. It remembers the state
+ * of the editor the press started from, so applying it can be skipped once the document or the selection has changed
+ * in the meantime.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SelectionPlan {
+
+    private final Document document;
+    private final long version;
+    private final int selectionStart;
+    private final int selectionEnd;
+    private final int caretPosition;
+    private final Direction direction;
+    private final SelectionRange range;
+    private final SelectionTiming.Origin origin;
+    private final TokenId tokenId;
+    private final SelectionStrategy strategy;
+    private final long computeStartTime;
+    private final long computeEndTime;
+
+    public SelectionPlan(Document document, long version, int selectionStart, int selectionEnd, int caretPosition,
+            Direction direction, SelectionRange range, SelectionTiming.Origin origin, TokenId tokenId,
+            SelectionStrategy strategy, long computeStartTime, long computeEndTime) {
+        this.document = document;
+        this.version = version;
+        this.selectionStart = selectionStart;
+        this.selectionEnd = selectionEnd;
+        this.caretPosition = caretPosition;
+        this.direction = direction;
+        this.range = range;
+        this.origin = origin;
+        this.tokenId = tokenId;
+        this.strategy = strategy;
+        this.computeStartTime = computeStartTime;
+        this.computeEndTime = computeEndTime;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getSelectionStart() {
+        return selectionStart;
+    }
+
+    public int getSelectionEnd() {
+        return selectionEnd;
+    }
+
+    public int getCaretPosition() {
+        return caretPosition;
+    }
+
+    /**
+     * @return the direction of the selection after the press
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the range to select or {@code null} if the selection cannot be extended any further
+     */
+    public SelectionRange getRange() {
+        return range;
+    }
+
+    public SelectionTiming.Origin getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return the token the press started from or {@code null} if there is none in the direction of the press
+     */
+    public TokenId getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return the strategy of the token the press started from or {@code null} if the token is not supported
+     */
+    public SelectionStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the computation of the range started
+     */
+    public long getComputeStartTime() {
+        return computeStartTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the range and the ladder were computed
+     */
+    public long getComputeEndTime() {
+        return computeEndTime;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.cache.SelectionLadder;
+import com.github.isarthur.netbeans.editor.textselector.cache.SelectionLadderCache;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndexStore;
+import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.netbeans.api.editor.EditorRegistry;
+import org.netbeans.api.java.source.JavaSource;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.openide.modules.OnStart;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Computes the selection ladder of the focused Java editor in the background once its caret has been idle for the
+ * configured delay, so the first Extend Selection is served from the {@link SelectionLadderCache}. A pending or
+ * running prefetch is abandoned as soon as the caret moves, the document changes or Extend Selection is pressed; a
+ * running one stops before the next level of the ladder, or right after the parse it is waiting for.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionPrefetcher implements PropertyChangeListener, CaretListener, DocumentListener {
+
+    private static final Logger LOG = Logger.getLogger(SelectionPrefetcher.class.getName());
+    private static final String JAVA_MIME_TYPE = "text/x-java"; //NOI18N
+    private static final RequestProcessor PREFETCH_PROCESSOR =
+            new RequestProcessor(SelectionPrefetcher.class.getName(), 1);
+    private static final SelectionPrefetcher INSTANCE = new SelectionPrefetcher();
+    private final RequestProcessor.Task task;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<Request> request = new AtomicReference<>();
+    private volatile boolean enabled;
+    private volatile int delay;
+    private JTextComponent editor;
+
+    /**
+     * The settings are cached and refreshed when they change, so a caret move does not read the preferences.
+     */
+    SelectionPrefetcher() {
+        task = PREFETCH_PROCESSOR.create(this::prefetch);
+        task.setPriority(Thread.MIN_PRIORITY);
+        readSettings();
+        Settings.addPreferenceChangeListener(event -> readSettings());
+    }
+
+    @OnStart
+    public static class Installer implements Runnable {
+
+        @Override
+        public void run() {
+            SwingUtilities.invokeLater(INSTANCE::install);
+        }
+    }
+
+    /**
+     * Abandons the pending or running prefetch, so it does not compete with a press for the parser.
+     */
+    public static void cancelPrefetch() {
+        INSTANCE.cancel();
+    }
+
+    private void readSettings() {
+        enabled = Settings.prefetch();
+        delay = Settings.prefetchDelay();
+    }
+
+    private void install() {
+        EditorRegistry.addPropertyChangeListener(this);
+        attach(EditorRegistry.focusedComponent());
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+        if (EditorRegistry.FOCUS_GAINED_PROPERTY.equals(propertyName)
+                || EditorRegistry.FOCUSED_DOCUMENT_PROPERTY.equals(propertyName)) {
+            attach(EditorRegistry.focusedComponent());
+        } else if (EditorRegistry.FOCUS_LOST_PROPERTY.equals(propertyName)) {
+            cancel();
+        } else if (EditorRegistry.COMPONENT_REMOVED_PROPERTY.equals(propertyName)
+                && event.getOldValue() == editor) {
+            attach(null);
+        }
+    }
+
+    @Override
+    public void caretUpdate(CaretEvent event) {
+        schedule();
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent event) {
+        cancel();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent event) {
+        cancel();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent event) {
+    }
+
+    void attach(JTextComponent component) {
+        cancel();
+        if (editor != null) {
+            editor.removeCaretListener(this);
+            editor.getDocument().removeDocumentListener(this);
+            editor = null;
+        }
+        if (component != null && JAVA_MIME_TYPE.equals(DocumentUtilities.getMimeType(component))) {
+            editor = component;
+            editor.addCaretListener(this);
+            editor.getDocument().addDocumentListener(this);
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        cancel();
+        if (editor == null || !enabled || editor.getSelectionStart() != editor.getSelectionEnd()) {
+            return;
+        }
+        Document document = editor.getDocument();
+        request.set(new Request(document, editor.getCaretPosition(), DocumentUtilities.getDocumentVersion(document),
+                generation.get()));
+        task.schedule(delay);
+    }
+
+    private void cancel() {
+        generation.incrementAndGet();
+        request.set(null);
+        task.cancel();
+    }
+
+    /**
+     * Waits until the scheduled prefetch has finished.
+     */
+    void waitFinished() {
+        task.waitFinished();
+    }
+
+    private void prefetch() {
+        Request current = request.getAndSet(null);
+        if (current == null || isCancelled(current)) {
+            return;
+        }
+        int caretPosition = current.caretPosition;
+        SelectionLadder cachedLadder = SelectionLadderCache.get(current.document);
+        if (cachedLadder != null && cachedLadder.indexOf(
+                caretPosition, caretPosition, caretPosition, cachedLadder.getDirection()) == 0) {
+            return;
+        }
+        JavaSource javaSource = JavaSource.forDocument(current.document);
+        if (javaSource == null) {
+            return;
+        }
+        try {
+            javaSource.runUserActionTask(controller -> {
+                if (isCancelled(current)) {
+                    return;
+                }
+                controller.toPhase(JavaSource.Phase.PARSED);
+                if (isCancelled(current)) {
+                    return;
+                }
+                SelectionLadder ladder =
+                        SelectionEngine.computeLadder(controller, current.caretPosition, () -> isCancelled(current));
+                if (ladder != null && !isCancelled(current)) {
+                    SelectionLadderCache.put(current.document, ladder, current.version);
+                    SpanIndexStore.store(
+                            controller.getSnapshot().getSource(), SpanIndex.get(controller), controller.getText());
+                }
+            }, true);
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, null, ex);
+        }
+    }
+
+    private boolean isCancelled(Request request) {
+        return request.generation != generation.get();
+    }
+
+    private static final class Request {
+
+        private final Document document;
+        private final int caretPosition;
+        private final long version;
+        private final int generation;
+
+        Request(Document document, int caretPosition, long version, int generation) {
+            this.document = document;
+            this.caretPosition = caretPosition;
+            this.version = version;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.ExtendSelectionStatistics;
+import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import java.awt.event.ActionEvent;
+import javax.swing.text.JTextComponent;
+import org.netbeans.editor.BaseAction;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Inverse of {@link TextSelector}: restores the selection the editor had before the last Extend Selection press from
+ * its {@link SelectionHistory}, without parsing. Does nothing outside Java documents, or if the document has been
+ * edited or the selection has been changed otherwise since. A press still being computed is abandoned, so it cannot
+ * overwrite the restored selection. Restored selections are counted by {@link ExtendSelectionStatistics}.
+ *
+ * @author Arthur Sadykov
+ */
+@ActionID(
+        category = "Edit",
+        id = "nb.editor.ui.actions.ShrinkSelection"
+)
+@ActionRegistration(
+        displayName = "#CTL_ShrinkSelection"
+)
+@ActionReferences({
+    @ActionReference(path = "Shortcuts", name = "D-S-W")
+})
+@Messages("CTL_ShrinkSelection=Shrink Selection")
+public class SelectionShrinker extends BaseAction {
+
+    private static final long serialVersionUID = 3194226178350542817L;
+
+    @Override
+    public void actionPerformed(ActionEvent event, JTextComponent editor) {
+        if (!JavaDocuments.mimeTypeOfEditorDocumentIsJava(editor)) {
+            return;
+        }
+        EditorSelectionState state = EditorSelectionState.get(editor);
+        state.nextGeneration();
+        state.getPendingApply().set(null);
+        state.cancelPress();
+        SelectionHistory history = state.getHistory();
+        long entry = history.pop(DocumentUtilities.getDocumentVersion(editor.getDocument()));
+        if (entry == SelectionHistory.NONE) {
+            return;
+        }
+        int start = SelectionHistory.getStart(entry);
+        int end = SelectionHistory.getEnd(entry);
+        int selectionStart = editor.getSelectionStart();
+        int selectionEnd = editor.getSelectionEnd();
+        if (start < selectionStart || end > selectionEnd || (start == selectionStart && end == selectionEnd)) {
+            history.clear();
+            return;
+        }
+        state.setDirection(SelectionHistory.getDirection(entry));
+        SelectionApplier.select(editor, start, end, state.getDirection());
+        ExtendSelectionStatistics.selectionShrunk();
+        if (start != end && Settings.copyToClipboard()) {
+            editor.copy();
+            ExtendSelectionStatistics.copiedToClipboard();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import org.netbeans.api.lexer.TokenId;
+
+/**
+ * Time taken by an Extend Selection press that has been applied to the editor, split into the phases of the press,
+ * together with the token and the strategy the press started from. All times are in nanoseconds.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SelectionTiming {
+
+    /**
+     * Where the selected range came from.
+     */
+    public enum Origin {
+        /**
+         * The selection ladder cached by a previous press or by the prefetch.
+         */
+        LADDER,
+        /**
+         * The tokens of the document.
+         */
+        TOKENS,
+        /**
+         * The span index stored by a previous session.
+         */
+        STORED_INDEX,
+        /**
+         * A parser result.
+         */
+        PARSER
+    }
+
+    private final Origin origin;
+    private final TokenId tokenId;
+    private final SelectionStrategy strategy;
+    private final long waitTime;
+    private final long computeTime;
+    private final long applyTime;
+
+    public SelectionTiming(Origin origin, TokenId tokenId, SelectionStrategy strategy, long waitTime, long computeTime,
+            long applyTime) {
+        this.origin = origin;
+        this.tokenId = tokenId;
+        this.strategy = strategy;
+        this.waitTime = waitTime;
+        this.computeTime = computeTime;
+        this.applyTime = applyTime;
+    }
+
+    public Origin getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return the token the press started from or {@code null} if the range came from the cached ladder
+     */
+    public TokenId getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return the strategy of the token the press started from or {@code null} if the range came from the cached
+     * ladder or the token is not supported
+     */
+    public SelectionStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return the time from the press until the range started being computed, which includes waiting for the
+     * document lock, the parser lock and the parse itself
+     */
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return the time spent computing the range and the following levels of the ladder
+     */
+    public long getComputeTime() {
+        return computeTime;
+    }
+
+    /**
+     * @return the time from the range being computed until it was selected in the editor
+     */
+    public long getApplyTime() {
+        return applyTime;
+    }
+
+    public long getTotalTime() {
+        return waitTime + computeTime + applyTime;
+    }
+}
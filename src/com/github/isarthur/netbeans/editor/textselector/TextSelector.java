@@ -15,25 +15,38 @@
  */
 package com.github.isarthur.netbeans.editor.textselector;
 
-import com.github.isarthur.netbeans.editor.textselector.exception.UnsupportedTokenException;
+import com.github.isarthur.netbeans.editor.textselector.cache.SelectionLadder;
+import com.github.isarthur.netbeans.editor.textselector.cache.SelectionLadderCache;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndexStore;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.ExtendSelectionStatistics;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.SelectionEvents;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.SlowSelectionDetector;
 import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import com.github.isarthur.netbeans.editor.textselector.ui.SelectionLatencyStatusLine;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
-import java.util.Optional;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.java.source.JavaSource;
 import org.netbeans.api.lexer.TokenHierarchy;
 import org.netbeans.api.lexer.TokenId;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.editor.BaseAction;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.netbeans.modules.parsing.api.Source;
 import org.openide.awt.ActionID;
 import org.openide.awt.ActionReference;
 import org.openide.awt.ActionReferences;
 import org.openide.awt.ActionRegistration;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
 
 @ActionID(
         category = "Edit",
@@ -49,85 +62,326 @@ import org.openide.util.NbBundle.Messages;
 public class TextSelector extends BaseAction {
 
     private static final long serialVersionUID = -5804809213732564866L;
-    private static final String MIME_TYPE = "mimeType"; //NOI18N
-    private static final String JAVA_MIME_TYPE = "text/x-java"; //NOI18N
-    private int selectionEnd;
-    private int selectionStart;
-    private Direction direction = Direction.BACKWARD;
-    private int caretPosition;
+    private static final RequestProcessor SELECTION_PROCESSOR = new RequestProcessor(TextSelector.class.getName(), 1);
 
+    /**
+     * Computes the next selection on a request processor and applies it in the event dispatch thread once the parser
+     * lock has been released. A press that is still being computed is abandoned by the next press in the same editor
+     * or by an edit of the document. The state of the presses is kept per editor, see {@link EditorSelectionState}.
+     */
     @Override
     public void actionPerformed(ActionEvent event, JTextComponent editor) {
-        if (!mimeTypeOfEditorDocumentIsJava(editor)) {
+        if (!JavaDocuments.mimeTypeOfEditorDocumentIsJava(editor)) {
             return;
         }
-        selectionStart = editor.getSelectionStart();
-        selectionEnd = editor.getSelectionEnd();
-        caretPosition = editor.getCaretPosition();
+        long pressTime = System.nanoTime();
+        Object pressEvent = SelectionEvents.beginExtendSelection();
+        SelectionPrefetcher.cancelPrefetch();
+        EditorSelectionState state = EditorSelectionState.get(editor);
+        state.setLastTiming(null);
+        int selectionStart = editor.getSelectionStart();
+        int selectionEnd = editor.getSelectionEnd();
+        int caretPosition = editor.getCaretPosition();
         Document document = editor.getDocument();
+        SelectionLadder cachedLadder = SelectionLadderCache.get(document);
+        int currentGeneration = state.nextGeneration();
+        state.getPendingApply().set(null);
+        state.cancelPress();
+        if (selectFromLadder(editor, state, cachedLadder, selectionStart, selectionEnd, caretPosition)) {
+            record(editor, state, new SelectionTiming(
+                    SelectionTiming.Origin.LADDER, null, null, 0, 0, System.nanoTime() - pressTime),
+                    selectionEnd - selectionStart, null, pressEvent);
+            return;
+        }
         JavaSource javaSource = JavaSource.forDocument(document);
         if (javaSource == null) {
             throw new IllegalStateException("The Java source is not associated to document!"); //NOI18N
         }
+        long version = DocumentUtilities.getDocumentVersion(document);
+        Direction currentDirection = state.getDirection();
+        SlowSelectionDetector.Watch watch = SlowSelectionDetector.watch();
+        state.setWatch(watch);
+        state.setTask(SELECTION_PROCESSOR.post(() -> {
+            if (watch != null) {
+                watch.setWorker(Thread.currentThread());
+            }
+            SelectionPlan plan = null;
+            try {
+                plan = computeUnparsedPlan(document, version, selectionStart, selectionEnd, caretPosition,
+                        currentDirection, cachedLadder, state, currentGeneration);
+                if (plan == null) {
+                    plan = computePlan(javaSource, document, version, selectionStart, selectionEnd, caretPosition,
+                            currentDirection, cachedLadder, state, currentGeneration);
+                }
+            } finally {
+                if (plan == null && watch != null) {
+                    watch.cancel();
+                }
+            }
+            if (plan == null) {
+                return;
+            }
+            SelectionPlan computedPlan = plan;
+            state.getPendingApply().set(
+                    () -> apply(editor, state, computedPlan, currentGeneration, pressTime, watch, pressEvent));
+            SwingUtilities.invokeLater(() -> applyPending(state));
+        }));
+    }
+
+    /**
+     * @return the timing of the last press in the editor or {@code null} if it has not been applied (yet)
+     */
+    SelectionTiming getLastTiming(JTextComponent editor) {
+        return EditorSelectionState.get(editor).getLastTiming();
+    }
+
+    /**
+     * Waits until the last press in the editor has been computed and applies it. Must be called in the event dispatch
+     * thread.
+     */
+    void waitFinished(JTextComponent editor) {
+        EditorSelectionState state = EditorSelectionState.get(editor);
+        if (state.getTask() != null) {
+            state.getTask().waitFinished();
+        }
+        applyPending(state);
+    }
+
+    /**
+     * Tries to compute the press without parsing: from the tokens of the document, or from the span index stored by a
+     * previous session if the document has not been parsed yet since it was opened.
+     *
+     * @return the plan or {@code null} if the press requires the parser
+     */
+    private SelectionPlan computeUnparsedPlan(Document document, long version, int selectionStart, int selectionEnd,
+            int caretPosition, Direction currentDirection, SelectionLadder cachedLadder, EditorSelectionState state,
+            int currentGeneration) {
+        SelectionPlan plan = computeLexicalPlan(document, version, selectionStart, selectionEnd, caretPosition,
+                currentDirection, cachedLadder, state, currentGeneration);
+        if (plan != null || SpanIndex.isIndexed(Source.create(document))) {
+            return plan;
+        }
+        if (SpanIndexStore.load(document, version, () -> getText(document, version, state, currentGeneration))
+                == null) {
+            return null;
+        }
+        return computeLexicalPlan(document, version, selectionStart, selectionEnd, caretPosition, currentDirection,
+                cachedLadder, state, currentGeneration);
+    }
+
+    /**
+     * Tries to compute the press under the read lock of the document from its tokens, which avoids parsing for the
+     * tokens whose selection does not depend on the syntax tree, or from the span index loaded for the current
+     * version of the document. The ladder is cached without being completed, the following levels are computed by
+     * the next press.
+     *
+     * @return the plan or {@code null} if the press requires the parser
+     */
+    private SelectionPlan computeLexicalPlan(Document document, long version, int selectionStart, int selectionEnd,
+            int caretPosition, Direction currentDirection, SelectionLadder cachedLadder, EditorSelectionState state,
+            int currentGeneration) {
+        SelectionPlan[] plan = new SelectionPlan[1];
+        SelectionLadder[] ladder = new SelectionLadder[1];
+        document.render(() -> {
+            if (isCancelled(state, currentGeneration, document, version)) {
+                return;
+            }
+            long computeStartTime = System.nanoTime();
+            TokenHierarchy<?> tokenHierarchy = TokenHierarchy.get(document);
+            TokenSequence<?> tokenSequence = tokenHierarchy.tokenSequence();
+            if (tokenSequence == null) {
+                return;
+            }
+            Direction newDirection = selectionStart != selectionEnd
+                    ? currentDirection
+                    : SelectionEngine.resolveDirection(tokenSequence, caretPosition);
+            SelectionRange range = SelectionEngine.selectNextLexically(
+                    tokenHierarchy, selectionStart, selectionEnd, caretPosition, newDirection);
+            SelectionTiming.Origin origin = SelectionTiming.Origin.TOKENS;
+            SpanIndex spanIndex = SpanIndexStore.get(document, version);
+            if (range == null && spanIndex != null) {
+                range = SelectionEngine.selectNextFromIndex(
+                        tokenHierarchy, spanIndex, selectionStart, selectionEnd, caretPosition, newDirection);
+                origin = SelectionTiming.Origin.STORED_INDEX;
+            }
+            if (range == null) {
+                return;
+            }
+            SelectionLadder.Builder builder = createLadderBuilder(
+                    cachedLadder, selectionStart, selectionEnd, caretPosition, newDirection);
+            builder.add(range.getStart(), range.getEnd());
+            ladder[0] = builder.build();
+            TokenId tokenId = SelectionEngine.getTokenId(tokenSequence, caretPosition, newDirection);
+            SelectionStrategy strategy = SelectionFactory.findStrategy(tokenId);
+            plan[0] = new SelectionPlan(document, version, selectionStart, selectionEnd, caretPosition, newDirection,
+                    range, origin, tokenId, strategy, computeStartTime, System.nanoTime());
+        });
+        if (ladder[0] != null) {
+            SelectionLadderCache.put(document, ladder[0], version);
+        }
+        return plan[0];
+    }
+
+    private String getText(Document document, long version, EditorSelectionState state, int currentGeneration) {
+        String[] text = new String[1];
+        document.render(() -> {
+            if (isCancelled(state, currentGeneration, document, version)) {
+                return;
+            }
+            try {
+                text[0] = document.getText(0, document.getLength());
+            } catch (BadLocationException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        });
+        return text[0];
+    }
+
+    private SelectionPlan computePlan(JavaSource javaSource, Document document, long version, int selectionStart,
+            int selectionEnd, int caretPosition, Direction currentDirection, SelectionLadder cachedLadder,
+            EditorSelectionState state, int currentGeneration) {
+        SelectionPlan[] plan = new SelectionPlan[1];
         try {
             javaSource.runUserActionTask(controller -> {
+                if (isCancelled(state, currentGeneration, document, version)) {
+                    return;
+                }
                 controller.toPhase(JavaSource.Phase.PARSED);
-                TokenHierarchy<?> tokenHierarchy = controller.getTokenHierarchy();
-                TokenSequence<?> tokenSequence = tokenHierarchy.tokenSequence();
-                tokenSequence.move(caretPosition);
-                if (!isTextSelected()) {
-                    if (tokenSequence.movePrevious()) {
-                        TokenId id = tokenSequence.token().id();
-                        if (id == JavaTokenId.WHITESPACE || id == JavaTokenId.LPAREN || id == JavaTokenId.DOT) {
-                            direction = Direction.FORWARD;
-                            resetTokenSequence(tokenSequence);
-                        } else {
-                            direction = Direction.BACKWARD;
-                            resetTokenSequence(tokenSequence);
-                        }
-                    } else {
-                        direction = Direction.FORWARD;
-                        resetTokenSequence(tokenSequence);
-                    }
-                } else {
-                    if (direction == Direction.BACKWARD) {
-                        tokenSequence.movePrevious();
-                    } else {
-                        tokenSequence.moveNext();
-                    }
+                if (isCancelled(state, currentGeneration, document, version)) {
+                    return;
                 }
-                try {
-                    SelectionFactory.create(editor, tokenSequence, selectionStart, selectionEnd, direction, controller).select();
-                    if (Settings.copyToClipboard()) {
-                        editor.copy();
-                    }
-                } catch (UnsupportedTokenException ex) {
-                    Exceptions.printStackTrace(ex);
+                long computeStartTime = System.nanoTime();
+                Direction newDirection = selectionStart != selectionEnd
+                        ? currentDirection
+                        : SelectionEngine.resolveDirection(
+                                controller.getTokenHierarchy().tokenSequence(), caretPosition);
+                SelectionLadder.Builder ladder = createLadderBuilder(
+                        cachedLadder, selectionStart, selectionEnd, caretPosition, newDirection);
+                SelectionRange range = SelectionEngine.selectNext(
+                        controller, selectionStart, selectionEnd, caretPosition, newDirection);
+                if (range != null) {
+                    ladder.add(range.getStart(), range.getEnd());
+                    SelectionEngine.completeLadder(controller, ladder, range);
+                } else {
+                    ladder.complete();
                 }
+                SelectionLadderCache.put(document, ladder.build(), version);
+                SpanIndexStore.store(
+                        controller.getSnapshot().getSource(), SpanIndex.get(controller), controller.getText());
+                TokenId tokenId = SelectionEngine.getTokenId(
+                        controller.getTokenHierarchy().tokenSequence(), caretPosition, newDirection);
+                SelectionStrategy strategy = SelectionFactory.findStrategy(tokenId);
+                plan[0] = new SelectionPlan(document, version, selectionStart, selectionEnd, caretPosition,
+                        newDirection, range, SelectionTiming.Origin.PARSER, tokenId, strategy, computeStartTime,
+                        System.nanoTime());
             }, true);
         } catch (IOException ex) {
             Exceptions.printStackTrace(ex);
         }
+        return plan[0];
+    }
+
+    private void applyPending(EditorSelectionState state) {
+        Runnable apply = state.getPendingApply().getAndSet(null);
+        if (apply != null) {
+            apply.run();
+        }
+    }
+
+    /**
+     * Applies the plan of a press and commits the event begun by the press, unless the editor has changed since.
+     */
+    private void apply(JTextComponent editor, EditorSelectionState state, SelectionPlan plan, int currentGeneration,
+            long pressTime, SlowSelectionDetector.Watch watch, Object pressEvent) {
+        Document document = plan.getDocument();
+        if (isCancelled(state, currentGeneration, document, plan.getVersion())
+                || editor.getDocument() != document
+                || editor.getSelectionStart() != plan.getSelectionStart()
+                || editor.getSelectionEnd() != plan.getSelectionEnd()
+                || editor.getCaretPosition() != plan.getCaretPosition()) {
+            if (watch != null) {
+                watch.cancel();
+            }
+            return;
+        }
+        state.setDirection(plan.getDirection());
+        SelectionRange range = plan.getRange();
+        if (range != null) {
+            pushHistory(editor, state, plan.getVersion(), range.getStart(), range.getEnd());
+            SelectionApplier.select(editor, range.getStart(), range.getEnd(), range.getDirection());
+        }
+        if (Settings.copyToClipboard()) {
+            editor.copy();
+            ExtendSelectionStatistics.copiedToClipboard();
+        }
+        long computeStartTime = plan.getComputeStartTime();
+        long computeEndTime = plan.getComputeEndTime();
+        record(editor, state, new SelectionTiming(plan.getOrigin(), plan.getTokenId(), plan.getStrategy(),
+                computeStartTime - pressTime, computeEndTime - computeStartTime, System.nanoTime() - computeEndTime),
+                plan.getSelectionEnd() - plan.getSelectionStart(), watch, pressEvent);
     }
 
-    private boolean mimeTypeOfEditorDocumentIsJava(JTextComponent editor) {
-        return getMimeTypeOfEditorDocument(editor).map(mt -> mt.equals(JAVA_MIME_TYPE)).orElse(false);
+    private void record(JTextComponent editor, EditorSelectionState state, SelectionTiming timing,
+            int selectionSizeBefore, SlowSelectionDetector.Watch watch, Object pressEvent) {
+        state.setLastTiming(timing);
+        SelectionEvents.selectionExtended(pressEvent, timing, state.getDirection(), selectionSizeBefore,
+                editor.getSelectionEnd() - editor.getSelectionStart());
+        ExtendSelectionStatistics.selectionExtended(timing);
+        SlowSelectionDetector.selectionExtended(timing, editor.getDocument().getLength(), watch);
+        SelectionLatencyStatusLine.selectionExtended(timing);
     }
 
-    private Optional<String> getMimeTypeOfEditorDocument(JTextComponent editor) {
-        return Optional.ofNullable((String) editor.getDocument().getProperty(MIME_TYPE));
+    private boolean isCancelled(EditorSelectionState state, int currentGeneration, Document document, long version) {
+        return !state.isCurrentGeneration(currentGeneration)
+                || version != DocumentUtilities.getDocumentVersion(document);
+    }
+
+    private boolean selectFromLadder(JTextComponent editor, EditorSelectionState state, SelectionLadder ladder,
+            int selectionStart, int selectionEnd, int caretPosition) {
+        if (ladder == null) {
+            return false;
+        }
+        int level = ladder.indexOf(selectionStart, selectionEnd, caretPosition, state.getDirection());
+        if (level < 0 || (level == ladder.size() - 1 && !ladder.isComplete())) {
+            return false;
+        }
+        state.setDirection(ladder.getDirection());
+        if (level < ladder.size() - 1) {
+            pushHistory(editor, state, DocumentUtilities.getDocumentVersion(editor.getDocument()),
+                    ladder.getStart(level + 1), ladder.getEnd(level + 1));
+            SelectionApplier.select(
+                    editor, ladder.getStart(level + 1), ladder.getEnd(level + 1), ladder.getDirection());
+        }
+        if (Settings.copyToClipboard()) {
+            editor.copy();
+            ExtendSelectionStatistics.copiedToClipboard();
+        }
+        return true;
     }
 
-    private void resetTokenSequence(TokenSequence<?> ts) {
-        ts.move(caretPosition);
-        if (direction == Direction.BACKWARD) {
-            ts.movePrevious();
-        } else {
-            ts.moveNext();
+    /**
+     * Remembers the current selection of the editor for Shrink Selection unless the new range is the same.
+     */
+    private void pushHistory(JTextComponent editor, EditorSelectionState state, long version, int start, int end) {
+        int selectionStart = editor.getSelectionStart();
+        int selectionEnd = editor.getSelectionEnd();
+        if (start == selectionStart && end == selectionEnd) {
+            return;
         }
+        Direction direction = selectionStart != selectionEnd && editor.getCaretPosition() == selectionStart
+                ? Direction.BACKWARD
+                : Direction.FORWARD;
+        state.getHistory().push(version, selectionStart, selectionEnd, direction);
     }
 
-    private boolean isTextSelected() {
-        return selectionStart != selectionEnd;
+    private SelectionLadder.Builder createLadderBuilder(SelectionLadder cachedLadder, int selectionStart,
+            int selectionEnd, int caretPosition, Direction direction) {
+        if (cachedLadder != null && cachedLadder.getDirection() == direction) {
+            int level = cachedLadder.indexOf(selectionStart, selectionEnd, caretPosition, direction);
+            if (level >= 0) {
+                return new SelectionLadder.Builder(cachedLadder, level);
+            }
+        }
+        return new SelectionLadder.Builder(selectionStart, selectionEnd, caretPosition, direction);
     }
 }
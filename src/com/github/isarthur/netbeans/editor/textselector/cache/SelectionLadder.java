@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.cache;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import java.util.Arrays;
+
+/**
+ * The chain of ranges produced by pressing Extend Selection repeatedly from one caret position. Level {@code 0} is
+ * the editor state before the first press, every following level is the result of one more press.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SelectionLadder {
+
+    private final int caretPosition;
+    private final Direction direction;
+    private final int[] starts;
+    private final int[] ends;
+    private final boolean complete;
+
+    private SelectionLadder(int caretPosition, Direction direction, int[] starts, int[] ends, boolean complete) {
+        this.caretPosition = caretPosition;
+        this.direction = direction;
+        this.starts = starts;
+        this.ends = ends;
+        this.complete = complete;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Tells whether pressing Extend Selection at the last level does not change the selection anymore.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getStart(int level) {
+        return starts[level];
+    }
+
+    public int getEnd(int level) {
+        return ends[level];
+    }
+
+    /**
+     * Finds the level matching the current editor state.
+     *
+     * @return the level or {@code -1} if the state is not part of this ladder
+     */
+    public int indexOf(int selectionStart, int selectionEnd, int caretPosition, Direction direction) {
+        if (selectionStart == selectionEnd) {
+            return starts[0] == selectionStart && ends[0] == selectionEnd ? 0 : -1;
+        }
+        if (direction != this.direction) {
+            return -1;
+        }
+        if (starts[0] == selectionStart && ends[0] == selectionEnd && this.caretPosition == caretPosition) {
+            return 0;
+        }
+        for (int level = 1; level < starts.length; level++) {
+            if (starts[level] == selectionStart && ends[level] == selectionEnd) {
+                int dot = direction == Direction.BACKWARD ? starts[level] : ends[level];
+                return dot == caretPosition ? level : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adjusts the ladder to text inserted into the document. Levels touching the inserted text are dropped together
+     * with all levels above them, levels following the inserted text are shifted.
+     *
+     * @return the adjusted ladder or {@code null} if no usable level remains
+     */
+    SelectionLadder afterInsert(int offset, int length) {
+        return adjust(offset, offset, length);
+    }
+
+    /**
+     * Adjusts the ladder to text removed from the document. Levels touching the removed text are dropped together
+     * with all levels above them, levels following the removed text are shifted.
+     *
+     * @return the adjusted ladder or {@code null} if no usable level remains
+     */
+    SelectionLadder afterRemove(int offset, int length) {
+        return adjust(offset, offset + length, -length);
+    }
+
+    private SelectionLadder adjust(int modificationStart, int modificationEnd, int delta) {
+        int size = 0;
+        while (size < starts.length && (ends[size] < modificationStart || starts[size] > modificationEnd)) {
+            size++;
+        }
+        if (size < 2) {
+            return null;
+        }
+        int[] adjustedStarts = Arrays.copyOf(starts, size);
+        int[] adjustedEnds = Arrays.copyOf(ends, size);
+        for (int level = 0; level < size; level++) {
+            if (adjustedStarts[level] > modificationEnd) {
+                adjustedStarts[level] += delta;
+                adjustedEnds[level] += delta;
+            }
+        }
+        int adjustedCaretPosition = caretPosition > modificationEnd ? caretPosition + delta : caretPosition;
+        return new SelectionLadder(adjustedCaretPosition, direction, adjustedStarts, adjustedEnds,
+                complete && size == starts.length);
+    }
+
+    public static class Builder {
+
+        private final int caretPosition;
+        private final Direction direction;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int size;
+        private boolean complete;
+
+        public Builder(int selectionStart, int selectionEnd, int caretPosition, Direction direction) {
+            this.caretPosition = caretPosition;
+            this.direction = direction;
+            add(selectionStart, selectionEnd);
+        }
+
+        /**
+         * Creates a builder continuing the given ladder from the given level.
+         */
+        public Builder(SelectionLadder ladder, int level) {
+            caretPosition = ladder.caretPosition;
+            direction = ladder.direction;
+            for (int i = 0; i <= level; i++) {
+                add(ladder.starts[i], ladder.ends[i]);
+            }
+        }
+
+        public boolean contains(int start, int end) {
+            for (int level = 0; level < size; level++) {
+                if (starts[level] == start && ends[level] == end) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public final Builder add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+            return this;
+        }
+
+        public Builder complete() {
+            complete = true;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public SelectionLadder build() {
+            return new SelectionLadder(
+                    caretPosition, direction, Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), complete);
+        }
+    }
+}
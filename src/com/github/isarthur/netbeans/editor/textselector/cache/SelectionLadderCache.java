@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.cache;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+import org.openide.util.WeakListeners;
+
+/**
+ * Keeps the last computed {@link SelectionLadder} of every document. Documents are held weakly so closed editors are
+ * not leaked. Once a ladder is cached, it follows the modifications of its document: an edit only invalidates the
+ * levels containing the edited region, the remaining levels are shifted and reused without a reparse.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionLadderCache {
+
+    private static final String STRUCTURAL_CHARACTERS = "{}()\"'/*;"; //NOI18N
+    private static final Map<Document, Entry> ENTRIES = new WeakHashMap<>();
+
+    private SelectionLadderCache() {
+    }
+
+    public static synchronized SelectionLadder get(Document document) {
+        Entry entry = ENTRIES.get(document);
+        return entry != null ? entry.ladder : null;
+    }
+
+    /**
+     * Caches the ladder unless the document has been modified since the given version, i.e. since the ladder was
+     * computed.
+     */
+    public static void put(Document document, SelectionLadder ladder, long version) {
+        document.render(() -> {
+            if (version != DocumentUtilities.getDocumentVersion(document)) {
+                return;
+            }
+            synchronized (SelectionLadderCache.class) {
+                Entry entry = ENTRIES.get(document);
+                if (entry == null) {
+                    entry = new Entry();
+                    ENTRIES.put(document, entry);
+                    document.addDocumentListener(WeakListeners.document(entry, document));
+                }
+                entry.ladder = ladder;
+            }
+        });
+    }
+
+    private static final class Entry implements DocumentListener {
+
+        private SelectionLadder ladder;
+
+        @Override
+        public void insertUpdate(DocumentEvent event) {
+            synchronized (SelectionLadderCache.class) {
+                if (ladder == null) {
+                    return;
+                }
+                if (isStructuralModification(getModificationText(event))) {
+                    ladder = null;
+                } else {
+                    ladder = ladder.afterInsert(event.getOffset(), event.getLength());
+                }
+            }
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent event) {
+            synchronized (SelectionLadderCache.class) {
+                if (ladder == null) {
+                    return;
+                }
+                if (isStructuralModification(DocumentUtilities.getModificationText(event))) {
+                    ladder = null;
+                } else {
+                    ladder = ladder.afterRemove(event.getOffset(), event.getLength());
+                }
+            }
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent event) {
+        }
+
+        private String getModificationText(DocumentEvent event) {
+            String text = DocumentUtilities.getModificationText(event);
+            if (text != null) {
+                return text;
+            }
+            try {
+                return event.getDocument().getText(event.getOffset(), event.getLength());
+            } catch (BadLocationException ex) {
+                return null;
+            }
+        }
+
+        /**
+         * Inserting or removing braces, parentheses, quotes, comment delimiters or semicolons may change the
+         * structure of the code far away from the edit, so the whole ladder has to be recomputed. Unknown
+         * modifications are treated as structural.
+         */
+        private boolean isStructuralModification(String text) {
+            if (text == null) {
+                return true;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (STRUCTURAL_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
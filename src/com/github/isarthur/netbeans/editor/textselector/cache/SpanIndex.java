@@ -0,0 +1,725 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.cache;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BreakTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ContinueTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.LabeledStatementTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.java.source.TreeUtilities;
+import org.netbeans.api.java.source.support.ErrorAwareTreeScanner;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.api.Source;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Sorted index of the spans of all nodes of a compilation unit, built once per parser result. It answers the same
+ * question as {@link TreeUtilities#pathFor(int)} by a binary search among the children of each node on the way down
+ * instead of a scan of the whole tree, so the cost of a lookup does not grow with the number of members or array
+ * elements of a class.
+ * <p>
+ * Nodes are stored in preorder in parallel primitive arrays; node {@code 0} is the compilation unit. The index does
+ * not reference any {@link Tree}, so keeping it for every open document does not keep the javac trees and symbol
+ * tables of their last parse in memory. It takes {@value #BYTES_PER_NODE} bytes per node:
+ * <ul>
+ * <li>start, end and parent: 12 bytes,</li>
+ * <li>first child and child list entry: 8 bytes,</li>
+ * <li>name span and auxiliary span: 16 bytes,</li>
+ * <li>kind ordinal and sorted children flag: 2 bytes.</li>
+ * </ul>
+ * The auxiliary span holds the parameter span of a method, the end of the method select of a method invocation and
+ * the start of the first update of a for loop; it is {@code -1} for other nodes. Nodes that cannot contain any
+ * position, i.e. nodes without positions, are left out together with their subtrees, as {@code pathFor} never
+ * descends into them.
+ * <p>
+ * The index can be written to and read from a byte buffer, which lets the module keep it across restarts. Only
+ * the spans, parents and kinds are written, the child lists are rebuilt when the index is read.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SpanIndex implements SyntaxSpans {
+
+    public static final int BYTES_PER_NODE = 38;
+    private static final int MAGIC = 0x53504958;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SERIALIZED_INTS_PER_NODE = 7;
+    private static final int ARRAY_COUNT = 11;
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final int INSTANCE_SIZE = 64;
+    private static final Logger LOG = Logger.getLogger(SpanIndex.class.getName());
+    private static final Tree.Kind[] KINDS = Tree.Kind.values();
+    private static final int KINDS_SIGNATURE = Arrays.toString(KINDS).hashCode();
+    private static final Set<Tree.Kind> NAMED_KINDS = EnumSet.of(
+            Tree.Kind.BREAK, Tree.Kind.CLASS, Tree.Kind.CONTINUE, Tree.Kind.LABELED_STATEMENT,
+            Tree.Kind.MEMBER_REFERENCE, Tree.Kind.MEMBER_SELECT, Tree.Kind.METHOD, Tree.Kind.TYPE_PARAMETER,
+            Tree.Kind.VARIABLE);
+    private static final Map<Source, SpanIndex> INDEXES = new WeakHashMap<>();
+
+    static {
+        if (KINDS.length > 256) {
+            throw new IllegalStateException("Tree kinds do not fit in a byte: " + KINDS.length); //NOI18N
+        }
+    }
+
+    private final WeakReference<Snapshot> snapshot;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] parents;
+    private final byte[] kinds;
+    private final int[] nameStarts;
+    private final int[] nameEnds;
+    private final int[] auxiliaryStarts;
+    private final int[] auxiliaryEnds;
+    private final int[] firstChildren;
+    private final int[] children;
+    private final boolean[] sortedChildren;
+
+    private SpanIndex(Snapshot snapshot, Builder builder) {
+        this(snapshot, builder.starts.toArray(), builder.ends.toArray(), builder.parents.toArray(),
+                builder.kinds.toByteArray(), builder.nameStarts.toArray(), builder.nameEnds.toArray(),
+                builder.auxiliaryStarts.toArray(), builder.auxiliaryEnds.toArray());
+    }
+
+    private SpanIndex(Snapshot snapshot, int[] starts, int[] ends, int[] parents, byte[] kinds, int[] nameStarts,
+            int[] nameEnds, int[] auxiliaryStarts, int[] auxiliaryEnds) {
+        this.snapshot = new WeakReference<>(snapshot);
+        this.starts = starts;
+        this.ends = ends;
+        this.parents = parents;
+        this.kinds = kinds;
+        this.nameStarts = nameStarts;
+        this.nameEnds = nameEnds;
+        this.auxiliaryStarts = auxiliaryStarts;
+        this.auxiliaryEnds = auxiliaryEnds;
+        int size = starts.length;
+        firstChildren = new int[size + 1];
+        children = new int[Math.max(size - 1, 0)];
+        sortedChildren = new boolean[size];
+        for (int node = 1; node < size; node++) {
+            firstChildren[parents[node] + 1]++;
+        }
+        for (int node = 1; node <= size; node++) {
+            firstChildren[node] += firstChildren[node - 1];
+        }
+        int[] filled = new int[size];
+        for (int node = 1; node < size; node++) {
+            int parent = parents[node];
+            children[firstChildren[parent] + filled[parent]++] = node;
+        }
+        for (int node = 0; node < size; node++) {
+            sortedChildren[node] = hasSortedChildren(node);
+        }
+    }
+
+    /**
+     * Returns the index of the compilation unit of the controller, building it if the source has not been indexed
+     * yet or has been reparsed since.
+     */
+    public static SpanIndex get(CompilationController controller) {
+        Snapshot currentSnapshot = controller.getSnapshot();
+        Source source = currentSnapshot.getSource();
+        synchronized (INDEXES) {
+            SpanIndex index = INDEXES.get(source);
+            if (index != null && index.snapshot.get() == currentSnapshot) {
+                return index;
+            }
+        }
+        SpanIndex index = build(controller);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Span index of {0}: {1} nodes, {2} bytes", //NOI18N
+                    new Object[]{getName(source), index.size(), index.getFootprint()});
+        }
+        synchronized (INDEXES) {
+            INDEXES.put(source, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return {@code true} if the source has been parsed and indexed since it was opened
+     */
+    public static boolean isIndexed(Source source) {
+        synchronized (INDEXES) {
+            return INDEXES.containsKey(source);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the index or {@code null} if the buffer does not hold an index written by this version of the module
+     * and the running javac
+     */
+    public static SpanIndex readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                || buffer.getInt() != KINDS_SIGNATURE) {
+            return null;
+        }
+        int size = buffer.getInt();
+        if (size <= 0 || (long) size * (4 * SERIALIZED_INTS_PER_NODE + 1) != buffer.remaining()) {
+            return null;
+        }
+        IntBuffer ints = buffer.asIntBuffer();
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        int[] parents = new int[size];
+        int[] nameStarts = new int[size];
+        int[] nameEnds = new int[size];
+        int[] auxiliaryStarts = new int[size];
+        int[] auxiliaryEnds = new int[size];
+        ints.get(starts).get(ends).get(parents).get(nameStarts).get(nameEnds).get(auxiliaryStarts)
+                .get(auxiliaryEnds);
+        buffer.position(buffer.position() + 4 * SERIALIZED_INTS_PER_NODE * size);
+        byte[] kinds = new byte[size];
+        buffer.get(kinds);
+        if (parents[0] != -1) {
+            return null;
+        }
+        for (int node = 0; node < size; node++) {
+            if ((node > 0 && (parents[node] < 0 || parents[node] >= node))
+                    || (kinds[node] & 0xFF) >= KINDS.length) {
+                return null;
+            }
+        }
+        return new SpanIndex(null, starts, ends, parents, kinds, nameStarts, nameEnds, auxiliaryStarts,
+                auxiliaryEnds);
+    }
+
+    /**
+     * @return the number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public int getSerializedSize() {
+        return HEADER_SIZE + (4 * SERIALIZED_INTS_PER_NODE + 1) * size();
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(KINDS_SIGNATURE).putInt(size());
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(starts).put(ends).put(parents).put(nameStarts).put(nameEnds).put(auxiliaryStarts)
+                .put(auxiliaryEnds);
+        buffer.position(buffer.position() + 4 * SERIALIZED_INTS_PER_NODE * size());
+        buffer.put(kinds);
+    }
+
+    /**
+     * Describes the memory taken by the span index of every open document, one document per line.
+     */
+    public static String getFootprintReport() {
+        StringBuilder report = new StringBuilder();
+        long total = 0;
+        synchronized (INDEXES) {
+            for (Map.Entry<Source, SpanIndex> entry : INDEXES.entrySet()) {
+                SpanIndex index = entry.getValue();
+                long footprint = index.getFootprint();
+                total += footprint;
+                report.append(getName(entry.getKey())).append(": ").append(index.size()).append(" nodes, ") //NOI18N
+                        .append(footprint).append(" bytes\n"); //NOI18N
+            }
+            report.append("Total: ").append(INDEXES.size()).append(" documents, ").append(total) //NOI18N
+                    .append(" bytes\n"); //NOI18N
+        }
+        return report.toString();
+    }
+
+    /**
+     * Equivalent of {@link TreeUtilities#pathFor(int)}, including the adjustment of the path when the position
+     * follows the closing token of the found node.
+     *
+     * @param tokenHierarchy the token hierarchy of the indexed text
+     * @return the leaf node of the path
+     */
+    @Override
+    public int pathFor(TokenHierarchy<?> tokenHierarchy, int position) {
+        int node = find(position);
+        if (node == 0) {
+            return node;
+        }
+        return adjust(tokenHierarchy, node, position);
+    }
+
+    /**
+     * Finds the innermost node whose span satisfies {@code start < position <= end}, which is the node
+     * {@code pathFor} would return before its adjustment. Erroneous nodes are transparent, i.e. never returned.
+     *
+     * @return the node, {@code 0} if the position is not inside any node but the compilation unit
+     */
+    public int find(int position) {
+        int result = 0;
+        int node = 0;
+        while ((node = findChild(node, position)) >= 0) {
+            if (!isErroneous(node)) {
+                result = node;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the innermost node containing the whole range {@code [start, end)}.
+     *
+     * @return the node, {@code 0} if no node but the compilation unit contains the range
+     */
+    public int findEnclosing(int start, int end) {
+        int result = 0;
+        int node = 0;
+        while ((node = findEnclosingChild(node, start, end)) >= 0) {
+            if (!isErroneous(node)) {
+                result = node;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Equivalent of {@link TreeUtilities#getPathElementOfKind(Set, com.sun.source.util.TreePath)}.
+     *
+     * @return the node itself or its nearest enclosing node of one of the kinds, {@code -1} if there is none
+     */
+    @Override
+    public int getEnclosing(int node, Set<Tree.Kind> enclosingKinds) {
+        int current = node;
+        while (current >= 0 && !enclosingKinds.contains(getKind(current))) {
+            current = getParent(current);
+        }
+        return current;
+    }
+
+    /**
+     * @return the nearest enclosing node that is not erroneous or {@code -1} for the compilation unit
+     */
+    @Override
+    public int getParent(int node) {
+        int parent = parents[node];
+        while (parent > 0 && isErroneous(parent)) {
+            parent = parents[parent];
+        }
+        return parent;
+    }
+
+    /**
+     * Finds the first child of the node, in the order the tree scanner visits the children, that starts at or after
+     * the position, e.g. the then statement of an if statement from the end of its condition.
+     *
+     * @return the child or {@code -1} if there is none
+     */
+    @Override
+    public int findChildAfter(int node, int position) {
+        for (int i = firstChildren[node]; i < firstChildren[node + 1]; i++) {
+            if (starts[children[i]] >= position) {
+                return children[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first child of the node of the given kind, in the order the tree scanner visits the children.
+     *
+     * @return the child or {@code -1} if there is none
+     */
+    @Override
+    public int findChildOfKind(int node, Tree.Kind kind) {
+        for (int i = firstChildren[node]; i < firstChildren[node + 1]; i++) {
+            if (getKind(children[i]) == kind) {
+                return children[i];
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    @Override
+    public Tree.Kind getKind(int node) {
+        return KINDS[kinds[node] & 0xFF];
+    }
+
+    @Override
+    public int getStart(int node) {
+        return starts[node];
+    }
+
+    @Override
+    public int getEnd(int node) {
+        return ends[node];
+    }
+
+    /**
+     * @return the start of the name as found by {@code TreeUtilities.findNameSpan} or {@code -1} if the node has no
+     * name
+     */
+    @Override
+    public int getNameStart(int node) {
+        return nameStarts[node];
+    }
+
+    @Override
+    public int getNameEnd(int node) {
+        return nameEnds[node];
+    }
+
+    /**
+     * @return the offset of the opening parenthesis of the parameters of a method or {@code -1}
+     */
+    @Override
+    public int getParameterStart(int node) {
+        return getKind(node) == Tree.Kind.METHOD ? auxiliaryStarts[node] : -1;
+    }
+
+    /**
+     * @return the offset of the closing parenthesis of the parameters of a method or {@code -1}
+     */
+    @Override
+    public int getParameterEnd(int node) {
+        return getKind(node) == Tree.Kind.METHOD ? auxiliaryEnds[node] : -1;
+    }
+
+    /**
+     * @return the end of the method select of a method invocation or {@code -1}
+     */
+    @Override
+    public int getMethodSelectEnd(int node) {
+        return getKind(node) == Tree.Kind.METHOD_INVOCATION ? auxiliaryStarts[node] : -1;
+    }
+
+    /**
+     * Estimates the memory taken by the index: the elements of its arrays, the headers of the
+     * {@value #ARRAY_COUNT} arrays and the index object itself with its references.
+     *
+     * @return the number of bytes taken by the index
+     */
+    public long getFootprint() {
+        long arrays = 4L * (starts.length + ends.length + parents.length + nameStarts.length + nameEnds.length
+                + auxiliaryStarts.length + auxiliaryEnds.length + firstChildren.length + children.length)
+                + kinds.length + sortedChildren.length;
+        return arrays + ARRAY_COUNT * ARRAY_HEADER_SIZE + INSTANCE_SIZE;
+    }
+
+    private int findChild(int node, int position) {
+        int first = firstChildren[node];
+        int last = firstChildren[node + 1];
+        if (sortedChildren[node]) {
+            int low = first;
+            int high = last - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[children[middle]] < position) {
+                    candidate = children[middle];
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return candidate >= 0 && ends[candidate] >= position ? candidate : -1;
+        }
+        for (int i = first; i < last; i++) {
+            int child = children[i];
+            if (starts[child] < position && ends[child] >= position) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private int findEnclosingChild(int node, int start, int end) {
+        int first = firstChildren[node];
+        int last = firstChildren[node + 1];
+        if (sortedChildren[node]) {
+            int low = first;
+            int high = last - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[children[middle]] <= start) {
+                    candidate = children[middle];
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return candidate >= 0 && ends[candidate] >= end ? candidate : -1;
+        }
+        for (int i = first; i < last; i++) {
+            int child = children[i];
+            if (starts[child] <= start && ends[child] >= end) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Children can be binary searched only if their spans are ordered and do not overlap, otherwise the first
+     * matching child in the scan order of the tree is not necessarily the one found.
+     */
+    private boolean hasSortedChildren(int node) {
+        for (int i = firstChildren[node] + 1; i < firstChildren[node + 1]; i++) {
+            int previous = children[i - 1];
+            int current = children[i];
+            if (starts[previous] < 0 || ends[previous] > starts[current]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isErroneous(int node) {
+        return getKind(node) == Tree.Kind.ERRONEOUS;
+    }
+
+    /**
+     * Mirrors the adjustment done by {@link TreeUtilities#pathFor(int)}: a position right after the closing token of
+     * a node belongs to the enclosing node, except for the closing tokens that do not end the node syntactically.
+     */
+    @SuppressWarnings("fallthrough") // The cases fall through in the same order as in TreeUtilities.pathFor.
+    private int adjust(TokenHierarchy<?> tokenHierarchy, int node, int position) {
+        int start = starts[node];
+        int end = ends[node];
+        if (start < 0) {
+            return node;
+        }
+        TokenSequence<JavaTokenId> tokenSequence = tokenHierarchy.tokenSequence(JavaTokenId.language());
+        if (tokenSequence == null) {
+            return node;
+        }
+        int difference = tokenSequence.move(end);
+        boolean moved = difference > 0 ? tokenSequence.moveNext() : tokenSequence.movePrevious();
+        if (!moved || tokenSequence.offset() + tokenSequence.token().length() <= start
+                || tokenSequence.offset() >= position) {
+            return node;
+        }
+        Tree.Kind kind = getKind(node);
+        int result = node;
+        switch (tokenSequence.token().id()) {
+            case GTGTGT:
+            case GTGT:
+            case GT:
+                if (kind == Tree.Kind.MEMBER_SELECT || TreeUtilities.CLASS_TREE_KINDS.contains(kind)
+                        || kind == Tree.Kind.GREATER_THAN) {
+                    break;
+                }
+            case RPAREN:
+                if (kind == Tree.Kind.ENHANCED_FOR_LOOP || kind == Tree.Kind.FOR_LOOP || kind == Tree.Kind.IF
+                        || kind == Tree.Kind.WHILE_LOOP || kind == Tree.Kind.DO_WHILE_LOOP
+                        || kind == Tree.Kind.TYPE_CAST || kind == Tree.Kind.SYNCHRONIZED) {
+                    break;
+                }
+            case SEMICOLON:
+                if (kind == Tree.Kind.EMPTY_STATEMENT || kind == Tree.Kind.TRY
+                        || (kind == Tree.Kind.FOR_LOOP && auxiliaryStarts[node] >= 0
+                        && tokenSequence.offset() <= auxiliaryStarts[node])) {
+                    break;
+                }
+            case RBRACE:
+                result = getParent(result);
+                switch (getKind(result)) {
+                    case CATCH:
+                        result = getParent(result);
+                    case METHOD:
+                    case FOR_LOOP:
+                    case ENHANCED_FOR_LOOP:
+                    case IF:
+                    case SYNCHRONIZED:
+                    case WHILE_LOOP:
+                    case TRY:
+                        result = getParent(result);
+                }
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    private static SpanIndex build(CompilationController controller) {
+        CompilationUnitTree compilationUnit = controller.getCompilationUnit();
+        SourcePositions sourcePositions = controller.getTrees().getSourcePositions();
+        TreeUtilities treeUtilities = controller.getTreeUtilities();
+        Builder builder = new Builder();
+        builder.add(compilationUnit, sourcePositions.getStartPosition(compilationUnit, compilationUnit),
+                sourcePositions.getEndPosition(compilationUnit, compilationUnit), -1, null, null);
+        compilationUnit.accept(new ErrorAwareTreeScanner<Void, Void>() {
+
+            private int parent;
+
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree == null) {
+                    return null;
+                }
+                long start = sourcePositions.getStartPosition(compilationUnit, tree);
+                long end = sourcePositions.getEndPosition(compilationUnit, tree);
+                if (end == -1 && tree.getKind() == Tree.Kind.ASSIGNMENT
+                        && builder.kinds.get(parent) == Tree.Kind.ANNOTATION.ordinal()) {
+                    end = sourcePositions.getEndPosition(compilationUnit, ((AssignmentTree) tree).getExpression());
+                }
+                if (start >= end) {
+                    return null;
+                }
+                int[] nameSpan = findNameSpan(treeUtilities, tree);
+                int[] auxiliarySpan = findAuxiliarySpan(treeUtilities, sourcePositions, compilationUnit, tree);
+                int node = builder.add(tree, start, end, parent, nameSpan, auxiliarySpan);
+                int previousParent = parent;
+                parent = node;
+                try {
+                    return super.scan(tree, p);
+                } finally {
+                    parent = previousParent;
+                }
+            }
+        }, null);
+        return new SpanIndex(controller.getSnapshot(), builder);
+    }
+
+    private static int[] findNameSpan(TreeUtilities treeUtilities, Tree tree) {
+        if (!NAMED_KINDS.contains(tree.getKind())) {
+            return null;
+        }
+        switch (tree.getKind()) {
+            case BREAK:
+                return treeUtilities.findNameSpan((BreakTree) tree);
+            case CLASS:
+                return treeUtilities.findNameSpan((ClassTree) tree);
+            case CONTINUE:
+                return treeUtilities.findNameSpan((ContinueTree) tree);
+            case LABELED_STATEMENT:
+                return treeUtilities.findNameSpan((LabeledStatementTree) tree);
+            case MEMBER_REFERENCE:
+                return treeUtilities.findNameSpan((MemberReferenceTree) tree);
+            case MEMBER_SELECT:
+                return treeUtilities.findNameSpan((MemberSelectTree) tree);
+            case METHOD:
+                return treeUtilities.findNameSpan((MethodTree) tree);
+            case TYPE_PARAMETER:
+                return treeUtilities.findNameSpan((TypeParameterTree) tree);
+            default:
+                return treeUtilities.findNameSpan((VariableTree) tree);
+        }
+    }
+
+    private static int[] findAuxiliarySpan(TreeUtilities treeUtilities, SourcePositions sourcePositions,
+            CompilationUnitTree compilationUnit, Tree tree) {
+        switch (tree.getKind()) {
+            case METHOD:
+                return treeUtilities.findMethodParameterSpan((MethodTree) tree);
+            case METHOD_INVOCATION:
+                return new int[]{(int) sourcePositions.getEndPosition(
+                    compilationUnit, ((MethodInvocationTree) tree).getMethodSelect()), -1};
+            case FOR_LOOP:
+                ForLoopTree forLoopTree = (ForLoopTree) tree;
+                if (forLoopTree.getUpdate().isEmpty()) {
+                    return null;
+                }
+                return new int[]{
+                    (int) sourcePositions.getStartPosition(compilationUnit, forLoopTree.getUpdate().get(0)), -1};
+            default:
+                return null;
+        }
+    }
+
+    private static String getName(Source source) {
+        FileObject file = source.getFileObject();
+        return file != null ? file.getPath() : source.toString();
+    }
+
+    private static final class Builder {
+
+        private final IntList starts = new IntList();
+        private final IntList ends = new IntList();
+        private final IntList parents = new IntList();
+        private final IntList kinds = new IntList();
+        private final IntList nameStarts = new IntList();
+        private final IntList nameEnds = new IntList();
+        private final IntList auxiliaryStarts = new IntList();
+        private final IntList auxiliaryEnds = new IntList();
+
+        int add(Tree tree, long start, long end, int parent, int[] nameSpan, int[] auxiliarySpan) {
+            int node = starts.size();
+            starts.add((int) start);
+            ends.add((int) end);
+            parents.add(parent);
+            kinds.add(tree.getKind().ordinal());
+            nameStarts.add(nameSpan != null ? nameSpan[0] : -1);
+            nameEnds.add(nameSpan != null ? nameSpan[1] : -1);
+            auxiliaryStarts.add(auxiliarySpan != null ? auxiliarySpan[0] : -1);
+            auxiliaryEnds.add(auxiliarySpan != null ? auxiliarySpan[1] : -1);
+            return node;
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                bytes[i] = (byte) values[i];
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.Document;
+import org.netbeans.modules.parsing.api.Source;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Keeps the span index of every parsed source in the cache directory of the IDE, in a file named after the hash of
+ * the indexed text, so the first Extend Selection after a restart can be computed without parsing as long as the
+ * document has not changed. The text is hashed at most once per version of a document, a miss is remembered as
+ * well. Indexes are read in one go and written in the background shortly after the last parse of a source, which
+ * keeps the number of writes low while typing. Once the files take more than {@value #MAX_CACHE_SIZE} bytes, the
+ * least recently used ones are deleted.
+ *
+ * @author Arthur Sadykov
+ */
+public class SpanIndexStore {
+
+    public static final long MAX_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final Logger LOG = Logger.getLogger(SpanIndexStore.class.getName());
+    private static final String CACHE_DIRECTORY = "textselector/spans"; //NOI18N
+    private static final String EXTENSION = ".bin"; //NOI18N
+    private static final int WRITE_DELAY = 2000;
+    private static final RequestProcessor STORE_PROCESSOR = new RequestProcessor(SpanIndexStore.class.getName(), 1);
+    private static final RequestProcessor.Task WRITE_TASK = STORE_PROCESSOR.create(SpanIndexStore::writePending);
+    private static final Map<Source, PendingWrite> PENDING_WRITES = new WeakHashMap<>();
+    private static final Map<Source, SpanIndex> STORED_INDEXES = new WeakHashMap<>();
+    private static final Map<Document, LoadedIndex> LOADED_INDEXES = new WeakHashMap<>();
+
+    private SpanIndexStore() {
+    }
+
+    /**
+     * Schedules writing the index of the text of the source. A write scheduled earlier for the same source is
+     * replaced; storing the index that has already been stored for the source does nothing.
+     */
+    public static void store(Source source, SpanIndex index, CharSequence text) {
+        synchronized (PENDING_WRITES) {
+            if (STORED_INDEXES.put(source, index) == index) {
+                return;
+            }
+            PENDING_WRITES.put(source, new PendingWrite(index, text));
+        }
+        WRITE_TASK.schedule(WRITE_DELAY);
+    }
+
+    /**
+     * Returns the index loaded by {@link #load(Document, long, Supplier)} for the given version of the document.
+     *
+     * @return the index or {@code null} if no index has been loaded for the version
+     */
+    public static SpanIndex get(Document document, long version) {
+        synchronized (LOADED_INDEXES) {
+            LoadedIndex loaded = LOADED_INDEXES.get(document);
+            return loaded != null && loaded.version == version ? loaded.index : null;
+        }
+    }
+
+    /**
+     * Loads the stored index of the text of the given version of the document. The text is only requested and
+     * hashed the first time a version is loaded, the outcome, found or not, is kept until the document changes. Must
+     * not be called under the lock of the document, the file is read in the calling thread.
+     *
+     * @param text supplies the text of the version or {@code null} if it is no longer available
+     * @return the index or {@code null} if none has been stored for the text
+     */
+    public static SpanIndex load(Document document, long version, Supplier<? extends CharSequence> text) {
+        synchronized (LOADED_INDEXES) {
+            LoadedIndex loaded = LOADED_INDEXES.get(document);
+            if (loaded != null && loaded.version == version) {
+                return loaded.index;
+            }
+        }
+        CharSequence currentText = text.get();
+        if (currentText == null) {
+            return null;
+        }
+        SpanIndex index = read(getFile(currentText));
+        synchronized (LOADED_INDEXES) {
+            LOADED_INDEXES.put(document, new LoadedIndex(version, index));
+        }
+        return index;
+    }
+
+    /**
+     * Writes the scheduled indexes right away. Used by tests.
+     */
+    static void flush() {
+        WRITE_TASK.schedule(0);
+        WRITE_TASK.waitFinished();
+    }
+
+    /**
+     * @return the file the index of the text is stored in or {@code null} if the text cannot be hashed
+     */
+    static File getFile(CharSequence text) {
+        return getFile(hash(text));
+    }
+
+    private static SpanIndex read(File file) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        SpanIndex index;
+        try {
+            index = SpanIndex.readFrom(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, null, ex);
+            return null;
+        }
+        if (index == null) {
+            LOG.log(Level.FINE, "Deleting unreadable span index {0}", file); //NOI18N
+            file.delete();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return index;
+    }
+
+    private static void writePending() {
+        PendingWrite[] writes;
+        synchronized (PENDING_WRITES) {
+            writes = PENDING_WRITES.values().toArray(new PendingWrite[0]);
+            PENDING_WRITES.clear();
+        }
+        boolean written = false;
+        for (PendingWrite write : writes) {
+            written |= write(write.index, hash(write.text));
+        }
+        if (written) {
+            evict(MAX_CACHE_SIZE);
+        }
+    }
+
+    private static boolean write(SpanIndex index, String hash) {
+        File file = getFile(hash);
+        if (file == null) {
+            return false;
+        }
+        if (file.isFile()) {
+            file.setLastModified(System.currentTimeMillis());
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(index.getSerializedSize());
+        index.writeTo(buffer);
+        buffer.flip();
+        Path target = file.toPath();
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(target.getParent(), hash, ".tmp"); //NOI18N
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, null, ex);
+            if (temporary != null) {
+                temporary.toFile().delete();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the rest take at most the given number of bytes.
+     */
+    static void evict(long maxSize) {
+        File directory = Places.getCacheSubdirectory(CACHE_DIRECTORY);
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) {
+            return;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length && size > maxSize; i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private static File getFile(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        return new File(Places.getCacheSubdirectory(CACHE_DIRECTORY), hash + EXTENSION);
+    }
+
+    private static String hash(CharSequence text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1"); //NOI18N
+            byte[] bytes = digest.digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder(2 * bytes.length);
+            for (byte b : bytes) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            LOG.log(Level.FINE, null, ex);
+            return null;
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final SpanIndex index;
+        private final CharSequence text;
+
+        PendingWrite(SpanIndex index, CharSequence text) {
+            this.index = index;
+            this.text = text;
+        }
+    }
+
+    private static final class LoadedIndex {
+
+        private final long version;
+        private final SpanIndex index;
+
+        LoadedIndex(long version, SpanIndex index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+}
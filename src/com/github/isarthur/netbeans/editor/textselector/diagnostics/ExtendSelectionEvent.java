@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ *
+ * @author Arthur Sadykov
+ */
+@Name("com.github.isarthur.textselector.ExtendSelection")
+@Label("Extend Selection")
+@Category({"NetBeans", "Text Selector"})
+@Description("An Extend Selection press, from the key press until the selection has been applied")
+@StackTrace(false)
+final class ExtendSelectionEvent extends jdk.jfr.Event {
+
+    @Label("Token")
+    String tokenId;
+
+    @Label("Strategy")
+    Class<?> strategy;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Origin")
+    @Description("Where the selected range came from: the cached ladder, the tokens, the stored span index or the "
+            + "parser")
+    String origin;
+
+    @Label("Selection Size Before")
+    int selectionSizeBefore;
+
+    @Label("Selection Size After")
+    int selectionSizeAfter;
+
+    @Label("Wait Time")
+    @Description("Time from the press until the range started being computed, including the wait for the request "
+            + "processor, the document and parser locks and the parse")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitTime;
+
+    @Label("Compute Time")
+    @Description("Time spent computing the range and the levels of the selection ladder built with it")
+    @Timespan(Timespan.NANOSECONDS)
+    long computeTime;
+
+    @Label("Apply Time")
+    @Description("Time from the range being computed until it was selected in the editor")
+    @Timespan(Timespan.NANOSECONDS)
+    long applyTime;
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTiming;
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import com.github.isarthur.netbeans.editor.textselector.selection.EnclosingNodeSelection;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.netbeans.api.lexer.TokenId;
+import org.openide.modules.OnStart;
+
+/**
+ * Collects the counters and latency histograms of the Extend Selection action and exposes them as a platform MXBean,
+ * so they can be watched from JConsole or VisualVM. Recording only adds to {@link LongAdder}s. It is lock-free after
+ * the first sample per token category and strategy, which briefly locks a bin of the map to add the counter.
+ *
+ * @author Arthur Sadykov
+ */
+public class ExtendSelectionStatistics implements ExtendSelectionStatisticsMXBean {
+
+    public static final String OBJECT_NAME = "com.github.isarthur.textselector:type=ExtendSelection"; //NOI18N
+    private static final Logger LOG = Logger.getLogger(ExtendSelectionStatistics.class.getName());
+    private static final String NO_STRATEGY = "(none)"; //NOI18N
+    private static final ExtendSelectionStatistics INSTANCE = new ExtendSelectionStatistics();
+    private final LongAdder invocations = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> invocationsByTokenCategory = new ConcurrentHashMap<>();
+    private final Map<SelectionTiming.Origin, LongAdder> invocationsByOrigin =
+            new EnumMap<>(SelectionTiming.Origin.class);
+    private final ConcurrentMap<String, LatencyHistogram> latencyByStrategy = new ConcurrentHashMap<>();
+    private final LongAdder fallbackSelections = new LongAdder();
+    private final LongAdder copiesToClipboard = new LongAdder();
+    private final LongAdder shrinks = new LongAdder();
+
+    private ExtendSelectionStatistics() {
+        for (SelectionTiming.Origin origin : SelectionTiming.Origin.values()) {
+            invocationsByOrigin.put(origin, new LongAdder());
+        }
+    }
+
+    @OnStart
+    public static class Installer implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(INSTANCE, name);
+            } catch (JMException ex) {
+                LOG.log(Level.INFO, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Records a press applied to the editor.
+     */
+    public static void selectionExtended(SelectionTiming timing) {
+        INSTANCE.invocations.increment();
+        INSTANCE.invocationsByOrigin.get(timing.getOrigin()).increment();
+        TokenId tokenId = timing.getTokenId();
+        if (tokenId != null) {
+            INSTANCE.invocationsByTokenCategory.computeIfAbsent(tokenId.primaryCategory(), category -> new LongAdder())
+                    .increment();
+        }
+        SelectionStrategy strategy = timing.getStrategy();
+        String strategyName = strategy != null ? strategy.getClass().getSimpleName() : NO_STRATEGY;
+        INSTANCE.latencyByStrategy.computeIfAbsent(strategyName, name -> new LatencyHistogram())
+                .record(timing.getTotalTime());
+        if (strategy instanceof EnclosingNodeSelection) {
+            INSTANCE.fallbackSelections.increment();
+        }
+    }
+
+    public static void copiedToClipboard() {
+        INSTANCE.copiesToClipboard.increment();
+    }
+
+    /**
+     * Records a Shrink Selection press that restored a previous selection.
+     */
+    public static void selectionShrunk() {
+        INSTANCE.shrinks.increment();
+    }
+
+    @Override
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+
+    @Override
+    public Map<String, Long> getInvocationCountsByTokenCategory() {
+        Map<String, Long> counts = new TreeMap<>();
+        invocationsByTokenCategory.forEach((category, count) -> counts.put(category, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getInvocationCountsByOrigin() {
+        Map<String, Long> counts = new TreeMap<>();
+        invocationsByOrigin.forEach((origin, count) -> counts.put(origin.name(), count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Summary> getLatencyByStrategy() {
+        Map<String, LatencyHistogram.Summary> summaries = new TreeMap<>();
+        latencyByStrategy.forEach((strategy, histogram) -> summaries.put(strategy, histogram.getSummary()));
+        return summaries;
+    }
+
+    @Override
+    public long getFallbackSelectionCount() {
+        return fallbackSelections.sum();
+    }
+
+    @Override
+    public long getCopyToClipboardCount() {
+        return copiesToClipboard.sum();
+    }
+
+    @Override
+    public long getShrinkCount() {
+        return shrinks.sum();
+    }
+
+    @Override
+    public double getLadderHitRatio() {
+        return getRatio(SelectionTiming.Origin.LADDER);
+    }
+
+    @Override
+    public double getParserRatio() {
+        return getRatio(SelectionTiming.Origin.PARSER);
+    }
+
+    @Override
+    public String getSpanIndexFootprint() {
+        return SpanIndex.getFootprintReport();
+    }
+
+    @Override
+    public void reset() {
+        invocations.reset();
+        invocationsByTokenCategory.clear();
+        invocationsByOrigin.values().forEach(LongAdder::reset);
+        latencyByStrategy.clear();
+        fallbackSelections.reset();
+        copiesToClipboard.reset();
+        shrinks.reset();
+    }
+
+    private double getRatio(SelectionTiming.Origin origin) {
+        long total = invocations.sum();
+        return total > 0 ? (double) invocationsByOrigin.get(origin).sum() / total : 0;
+    }
+}
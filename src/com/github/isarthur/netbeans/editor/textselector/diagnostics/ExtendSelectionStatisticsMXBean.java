@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import java.util.Map;
+
+/**
+ * Counters and latency histograms of the Extend Selection action, registered in the platform MBean server as
+ * {@value ExtendSelectionStatistics#OBJECT_NAME}.
+ *
+ * @author Arthur Sadykov
+ */
+public interface ExtendSelectionStatisticsMXBean {
+
+    long getInvocationCount();
+
+    /**
+     * @return the number of presses per category of the token they started from
+     */
+    Map<String, Long> getInvocationCountsByTokenCategory();
+
+    /**
+     * @return the number of presses per origin of the selected range
+     */
+    Map<String, Long> getInvocationCountsByOrigin();
+
+    /**
+     * @return the latency from the press until the selection has been applied, per strategy of the token the press
+     * started from
+     */
+    Map<String, LatencyHistogram.Summary> getLatencyByStrategy();
+
+    /**
+     * @return the number of presses on tokens without a dedicated strategy, which selected the enclosing tree node
+     */
+    long getFallbackSelectionCount();
+
+    long getCopyToClipboardCount();
+
+    /**
+     * @return the number of Shrink Selection presses that restored a previous selection
+     */
+    long getShrinkCount();
+
+    /**
+     * @return the ratio of presses served from the cached selection ladder
+     */
+    double getLadderHitRatio();
+
+    /**
+     * @return the ratio of presses that needed a parser result
+     */
+    double getParserRatio();
+
+    /**
+     * @return the memory taken by the span indexes of the open documents
+     */
+    String getSpanIndexFootprint();
+
+    void reset();
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies with power of two buckets: bucket {@code i} counts the latencies from
+ * {@code 2^i} to {@code 2^(i+1)} nanoseconds. Recording a latency adds to two {@link LongAdder}s, so concurrent
+ * recording threads do not contend. Percentiles are approximated by the upper bound of their bucket.
+ *
+ * @author Arthur Sadykov
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalTime = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos > 0 ? 63 - Long.numberOfLeadingZeros(nanos) : 0;
+        buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        totalTime.add(nanos);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalTime.reset();
+    }
+
+    /**
+     * @return a snapshot of the histogram; concurrent recording may make it slightly inconsistent
+     */
+    public Summary getSummary() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        double total = totalTime.sum();
+        return new Summary(count, count > 0 ? total / count / 1000 : 0, getPercentile(counts, count, 0.5),
+                getPercentile(counts, count, 0.95), getPercentile(counts, count, 0.99));
+    }
+
+    private static double getPercentile(long[] counts, long count, double percentile) {
+        long threshold = (long) Math.ceil(percentile * count);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= threshold && cumulative > 0) {
+                return (1L << (i + 1)) / 1000.0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Latencies in microseconds, exposed as composite data by the MXBean.
+     */
+    public static final class Summary {
+
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p95Micros;
+        private final double p99Micros;
+
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p95Micros", "p99Micros"})
+        public Summary(long count, double meanMicros, double p50Micros, double p95Micros, double p99Micros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP95Micros() {
+            return p95Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTiming;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.EventType;
+import org.netbeans.api.lexer.TokenId;
+
+/**
+ * Emits the Flight Recorder events of the module. The event classes are only loaded by the first emitted event, so
+ * the module keeps working on a JVM without Flight Recorder: the first {@link LinkageError} turns the events off.
+ * While no recording enables them, an event costs a check of a flag.
+ * <p>
+ * An event is begun when the measured work starts and committed when it ends, so its start time and duration are
+ * those of the work. The begun events are handed to the callers as opaque objects, which keeps the event classes out
+ * of the signatures of the callers.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionEvents {
+
+    private static final Logger LOG = Logger.getLogger(SelectionEvents.class.getName());
+    private static volatile boolean available = true;
+
+    private SelectionEvents() {
+    }
+
+    /**
+     * Begins the event of a step, to be called right before the strategy selects.
+     *
+     * @return the begun event to pass to {@link #stepSelected} or {@code null} if no recording is interested in the
+     * steps
+     */
+    public static Object beginStep() {
+        if (!available) {
+            return null;
+        }
+        try {
+            return StepEvents.begin();
+        } catch (LinkageError ex) {
+            disable(ex);
+            return null;
+        }
+    }
+
+    /**
+     * Commits the event of a step begun by {@link #beginStep}.
+     */
+    public static void stepSelected(Object event, TokenId tokenId, SelectionStrategy strategy,
+            SelectionContext context) {
+        if (!available || event == null) {
+            return;
+        }
+        try {
+            StepEvents.commit(event, tokenId, strategy, context);
+        } catch (LinkageError ex) {
+            disable(ex);
+        }
+    }
+
+    /**
+     * Begins the event of an Extend Selection press, to be called when the press is received.
+     *
+     * @return the begun event to pass to {@link #selectionExtended} or {@code null} if no recording is interested in
+     * the presses
+     */
+    public static Object beginExtendSelection() {
+        if (!available) {
+            return null;
+        }
+        try {
+            return ExtendSelectionEvents.begin();
+        } catch (LinkageError ex) {
+            disable(ex);
+            return null;
+        }
+    }
+
+    /**
+     * Commits the event of a press begun by {@link #beginExtendSelection} once the press has been applied to the
+     * editor.
+     */
+    public static void selectionExtended(Object event, SelectionTiming timing, Direction direction,
+            int selectionSizeBefore, int selectionSizeAfter) {
+        if (!available || event == null) {
+            return;
+        }
+        try {
+            ExtendSelectionEvents.commit(event, timing, direction, selectionSizeBefore, selectionSizeAfter);
+        } catch (LinkageError ex) {
+            disable(ex);
+        }
+    }
+
+    private static void disable(LinkageError error) {
+        available = false;
+        LOG.log(Level.FINE, "Flight Recorder events are not available", error); //NOI18N
+    }
+
+    private static class StepEvents {
+
+        private static final EventType TYPE = EventType.getEventType(SelectionStepEvent.class);
+
+        static Object begin() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+            SelectionStepEvent event = new SelectionStepEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commit(Object begunEvent, TokenId tokenId, SelectionStrategy strategy, SelectionContext context) {
+            SelectionStepEvent event = (SelectionStepEvent) begunEvent;
+            event.end();
+            if (!event.shouldCommit()) {
+                return;
+            }
+            SelectionRange range = context.getSelectedRange();
+            event.tokenId = tokenId.name();
+            event.strategy = strategy.getClass();
+            event.direction = context.getDirection().name();
+            event.selectionSizeBefore = context.getSelectionEnd() - context.getSelectionStart();
+            event.selectionSizeAfter = range != null ? range.getEnd() - range.getStart() : -1;
+            event.commit();
+        }
+    }
+
+    private static class ExtendSelectionEvents {
+
+        private static final EventType TYPE = EventType.getEventType(ExtendSelectionEvent.class);
+
+        static Object begin() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+            ExtendSelectionEvent event = new ExtendSelectionEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commit(Object begunEvent, SelectionTiming timing, Direction direction, int selectionSizeBefore,
+                int selectionSizeAfter) {
+            ExtendSelectionEvent event = (ExtendSelectionEvent) begunEvent;
+            event.end();
+            if (!event.shouldCommit()) {
+                return;
+            }
+            event.tokenId = timing.getTokenId() != null ? timing.getTokenId().name() : null;
+            event.strategy = timing.getStrategy() != null ? timing.getStrategy().getClass() : null;
+            event.direction = direction.name();
+            event.origin = timing.getOrigin().name();
+            event.selectionSizeBefore = selectionSizeBefore;
+            event.selectionSizeAfter = selectionSizeAfter;
+            event.waitTime = timing.getWaitTime();
+            event.computeTime = timing.getComputeTime();
+            event.applyTime = timing.getApplyTime();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * @author Arthur Sadykov
+ */
+@Name("com.github.isarthur.textselector.SelectionStep")
+@Label("Selection Step")
+@Category({"NetBeans", "Text Selector"})
+@Description("A single step computed by a selection strategy, the duration is the time of the step")
+@StackTrace(false)
+final class SelectionStepEvent extends jdk.jfr.Event {
+
+    @Label("Token")
+    String tokenId;
+
+    @Label("Strategy")
+    Class<?> strategy;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Selection Size Before")
+    int selectionSizeBefore;
+
+    @Label("Selection Size After")
+    int selectionSizeAfter;
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTiming;
+import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Logs the presses that take longer than {@link Settings#slowSelectionThreshold()}, from the press until the
+ * selection has been applied. While a press is running, a {@link Watch} samples the stacks of the event dispatch
+ * thread, of the thread computing the press and of every thread inside the parsing API once the threshold has passed,
+ * so the record shows where the time went, including a parse holding the parser lock in another thread. At most
+ * one record is logged per minute, the number of slow presses left out is added to the next one.
+ *
+ * @author Arthur Sadykov
+ */
+public class SlowSelectionDetector {
+
+    private static final Logger LOG = Logger.getLogger(SlowSelectionDetector.class.getName());
+    private static final long MIN_LOG_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_STACK_DEPTH = 40;
+    private static final String PARSING_PACKAGE = "org.netbeans.modules.parsing."; //NOI18N
+    private static final RequestProcessor WATCHDOG = new RequestProcessor(SlowSelectionDetector.class.getName(), 1);
+    private static final AtomicLong LAST_LOG_TIME = new AtomicLong(System.nanoTime() - MIN_LOG_INTERVAL);
+    private static final AtomicInteger SUPPRESSED = new AtomicInteger();
+
+    private SlowSelectionDetector() {
+    }
+
+    /**
+     * Starts watching a press. Must be called in the event dispatch thread when the press starts.
+     *
+     * @return the watch or {@code null} if slow presses are not logged
+     */
+    public static Watch watch() {
+        int threshold = Settings.slowSelectionThreshold();
+        return threshold > 0 ? new Watch(Thread.currentThread(), threshold) : null;
+    }
+
+    /**
+     * Logs the press if it took longer than the threshold and stops watching it.
+     *
+     * @param watch the watch of the press or {@code null}
+     */
+    public static void selectionExtended(SelectionTiming timing, int documentLength, Watch watch) {
+        String stacks = null;
+        if (watch != null) {
+            watch.cancel();
+            stacks = watch.stacks;
+        }
+        int threshold = Settings.slowSelectionThreshold();
+        if (threshold <= 0 || timing.getTotalTime() < TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long lastLogTime = LAST_LOG_TIME.get();
+        if (now - lastLogTime < MIN_LOG_INTERVAL || !LAST_LOG_TIME.compareAndSet(lastLogTime, now)) {
+            SUPPRESSED.incrementAndGet();
+            return;
+        }
+        LogRecord record = new LogRecord(Level.INFO, "Slow Extend Selection: total={0} ms, " //NOI18N
+                + "wait for locks and parse={1} ms, compute={2} ms, apply={3} ms, origin={4}, token={5}, " //NOI18N
+                + "strategy={6}, document length={7}, slow presses not logged since last record={8}{9}"); //NOI18N
+        record.setParameters(new Object[]{
+            toMillis(timing.getTotalTime()), toMillis(timing.getWaitTime()), toMillis(timing.getComputeTime()),
+            toMillis(timing.getApplyTime()), timing.getOrigin(), timing.getTokenId(),
+            timing.getStrategy() != null ? timing.getStrategy().getClass().getName() : null, documentLength,
+            SUPPRESSED.getAndSet(0), stacks != null ? stacks : ""});
+        record.setLoggerName(LOG.getName());
+        LOG.log(record);
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Samples the stacks of the threads working on a press once it has been running for the threshold. The watch has
+     * to be cancelled on every path that ends the press, or the stacks are sampled for a press that is over.
+     */
+    public static final class Watch {
+
+        private final Thread eventThread;
+        private final RequestProcessor.Task task;
+        private volatile Thread worker;
+        private volatile String stacks;
+
+        private Watch(Thread eventThread, int threshold) {
+            this.eventThread = eventThread;
+            task = WATCHDOG.post(this::sample, threshold);
+        }
+
+        /**
+         * Sets the thread computing the press.
+         */
+        public void setWorker(Thread worker) {
+            this.worker = worker;
+        }
+
+        public void cancel() {
+            task.cancel();
+        }
+
+        private void sample() {
+            StringBuilder builder = new StringBuilder();
+            Thread currentWorker = worker;
+            for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+                Thread thread = entry.getKey();
+                StackTraceElement[] stack = entry.getValue();
+                if (thread == eventThread || thread == currentWorker || isParsing(stack)) {
+                    appendStack(builder, thread, stack);
+                }
+            }
+            stacks = builder.toString();
+        }
+
+        private static boolean isParsing(StackTraceElement[] stack) {
+            for (StackTraceElement element : stack) {
+                if (element.getClassName().startsWith(PARSING_PACKAGE)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void appendStack(StringBuilder builder, Thread thread, StackTraceElement[] stack) {
+            builder.append("\n\"").append(thread.getName()).append("\" ").append(thread.getState()); //NOI18N
+            for (int i = 0; i < stack.length && i < MAX_STACK_DEPTH; i++) {
+                builder.append("\n    at ").append(stack[i]); //NOI18N
+            }
+            if (stack.length > MAX_STACK_DEPTH) {
+                builder.append("\n    ..."); //NOI18N
+            }
+        }
+    }
+}
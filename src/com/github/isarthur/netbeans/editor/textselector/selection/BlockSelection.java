@@ -15,16 +15,12 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import java.util.EnumSet;
+import java.util.Set;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -33,63 +29,49 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class BlockSelection extends Selection {
 
-    public BlockSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(JavaTokenId.LBRACE, JavaTokenId.RBRACE);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath blockPath;
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int block;
         if (tokenSequence.token().id() == JavaTokenId.LBRACE) {
-            blockPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
+            block = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset() + 1);
         } else {
-            blockPath = treeUtilities.pathFor(tokenSequence.offset());
-        }
-        if (blockPath == null) {
-            return;
+            block = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset());
         }
-        Tree blockTree = blockPath.getLeaf();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        long startPosition = sourcePositions.getStartPosition(compilationUnitTree, blockTree);
-        long endPosition = sourcePositions.getEndPosition(compilationUnitTree, blockTree);
-        select((int) startPosition, (int) endPosition);
+        select(context, index.getStart(block), index.getEnd(block));
     }
 
     @Override
-    protected void select(int startPosition, int endPosition) {
-        if (direction == Direction.BACKWARD) {
-            if (isTextSelected()) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
+        int selectionStart = context.getSelectionStart();
+        int selectionEnd = context.getSelectionEnd();
+        if (context.getDirection() == Direction.BACKWARD) {
+            if (context.isTextSelected()) {
                 if (selectionEnd < endPosition) {
-                    selectBackward(endPosition, startPosition);
-                    selectionStart = endPosition;
+                    selectBackward(context, endPosition, startPosition);
                 } else {
-                    selectBackward(selectionEnd, startPosition);
-                    selectionStart = selectionEnd;
+                    selectBackward(context, selectionEnd, startPosition);
                 }
-                selectionEnd = startPosition;
             } else {
-                selectBackward(endPosition, startPosition);
-                selectionStart = endPosition;
-                selectionEnd = startPosition;
+                selectBackward(context, endPosition, startPosition);
             }
         } else {
-            if (isTextSelected()) {
+            if (context.isTextSelected()) {
                 if (selectionStart < startPosition) {
-                    selectForward(selectionStart, endPosition);
-                    selectionEnd = endPosition;
+                    selectForward(context, selectionStart, endPosition);
                 } else {
-                    selectForward(startPosition, endPosition);
-                    selectionStart = startPosition;
-                    selectionEnd = endPosition;
+                    selectForward(context, startPosition, endPosition);
                 }
             } else {
-                selectForward(startPosition, endPosition);
-                selectionStart = startPosition;
-                selectionEnd = endPosition;
+                selectForward(context, startPosition, endPosition);
             }
         }
     }
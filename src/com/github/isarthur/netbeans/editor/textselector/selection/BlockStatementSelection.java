@@ -15,15 +15,12 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -32,58 +29,45 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class BlockStatementSelection extends Selection {
 
-    public BlockStatementSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart,
-            int selectionEnd, Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.DO, JavaTokenId.WHILE, JavaTokenId.FOR, JavaTokenId.SWITCH);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath whileStatementPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
-        if (whileStatementPath == null) {
-            return;
-        }
-        Tree whileStatementTree = whileStatementPath.getLeaf();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        long startPosition = sourcePositions.getStartPosition(compilationUnitTree, whileStatementTree);
-        long endPosition = sourcePositions.getEndPosition(compilationUnitTree, whileStatementTree);
-        select((int) startPosition, (int) endPosition);
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int whileStatement = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset() + 1);
+        select(context, index.getStart(whileStatement), index.getEnd(whileStatement));
     }
 
     @Override
-    protected void select(int startPosition, int endPosition) {
-        if (direction == Direction.BACKWARD) {
-            if (isTextSelected()) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
+        int selectionStart = context.getSelectionStart();
+        int selectionEnd = context.getSelectionEnd();
+        if (context.getDirection() == Direction.BACKWARD) {
+            if (context.isTextSelected()) {
                 if (selectionEnd < endPosition) {
-                    selectBackward(endPosition, startPosition);
-                    selectionStart = endPosition;
+                    selectBackward(context, endPosition, startPosition);
                 } else {
-                    selectBackward(selectionEnd, startPosition);
-                    selectionStart = selectionEnd;
+                    selectBackward(context, selectionEnd, startPosition);
                 }
-                selectionEnd = startPosition;
             } else {
-                selectBackward(endPosition, startPosition);
-                selectionStart = endPosition;
-                selectionEnd = startPosition;
+                selectBackward(context, endPosition, startPosition);
             }
         } else {
-            if (isTextSelected()) {
+            if (context.isTextSelected()) {
                 if (selectionStart < startPosition) {
-                    selectForward(selectionStart, endPosition);
-                    selectionEnd = endPosition;
+                    selectForward(context, selectionStart, endPosition);
                 } else {
-                    selectForward(startPosition, endPosition);
-                    selectionStart = startPosition;
-                    selectionEnd = endPosition;
+                    selectForward(context, startPosition, endPosition);
                 }
             } else {
-                selectForward(startPosition, endPosition);
-                selectionStart = startPosition;
-                selectionEnd = endPosition;
+                selectForward(context, startPosition, endPosition);
             }
         }
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.selection;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * Selects a comment, without the line break ending a line comment. A comment is delimited by its token, so it is
+ * selected without a syntax tree. Once the comment is selected, the tree node enclosing it is selected as by
+ * {@link EnclosingNodeSelection}.
+ *
+ * @author Arthur Sadykov
+ */
+public class CommentSelection extends Selection {
+
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.BLOCK_COMMENT, JavaTokenId.JAVADOC_COMMENT, JavaTokenId.LINE_COMMENT);
+    private final EnclosingNodeSelection enclosingNodeSelection = new EnclosingNodeSelection();
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
+    }
+
+    @Override
+    public void select(SelectionContext context) {
+        if (isCommentUnselected(context)) {
+            TokenSequence<?> tokenSequence = context.getTokenSequence();
+            select(context, tokenSequence.offset(), getCommentEnd(tokenSequence));
+            return;
+        }
+        enclosingNodeSelection.select(context);
+    }
+
+    /**
+     * @return {@code true} if the current selection does not cover the whole comment at the current position of the
+     * token sequence of the context
+     */
+    public boolean isCommentUnselected(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        return context.getSelectionStart() > tokenSequence.offset()
+                || context.getSelectionEnd() < getCommentEnd(tokenSequence);
+    }
+
+    private static int getCommentEnd(TokenSequence<?> tokenSequence) {
+        CharSequence text = tokenSequence.token().text();
+        int length = text.length();
+        while (length > 0 && (text.charAt(length - 1) == '\n' || text.charAt(length - 1) == '\r')) {
+            length--;
+        }
+        return tokenSequence.offset() + length;
+    }
+}
@@ -15,20 +15,13 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.ExpressionTree;
-import com.sun.source.tree.MethodInvocationTree;
-import com.sun.source.tree.MethodTree;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
 import java.util.EnumSet;
-import javax.swing.text.JTextComponent;
+import java.util.Set;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -37,99 +30,84 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class EnclosedExpressionSelection extends Selection {
 
-    public EnclosedExpressionSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart,
-            int selectionEnd, Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(JavaTokenId.LPAREN, JavaTokenId.RPAREN);
+    private static final Set<Tree.Kind> ENCLOSING_KINDS =
+            EnumSet.of(Tree.Kind.METHOD, Tree.Kind.METHOD_INVOCATION, Tree.Kind.PARENTHESIZED);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath currentPath;
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int current;
         if (tokenSequence.token().id() == JavaTokenId.LPAREN) {
-            currentPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
+            current = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset() + 1);
         } else {
-            currentPath = treeUtilities.pathFor(tokenSequence.offset());
-        }
-        if (currentPath == null) {
-            return;
+            current = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset());
         }
-        TreePath enclosedExpressionPath = treeUtilities.getPathElementOfKind(
-                EnumSet.of(Tree.Kind.METHOD, Tree.Kind.METHOD_INVOCATION, Tree.Kind.PARENTHESIZED), currentPath);
-        if (enclosedExpressionPath == null) {
+        int enclosedExpression = index.getEnclosing(current, ENCLOSING_KINDS);
+        if (enclosedExpression < 0) {
             return;
         }
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        long startPosition;
-        long endPosition;
-        Tree enclosedExpressionTree = enclosedExpressionPath.getLeaf();
-        switch (enclosedExpressionTree.getKind()) {
+        int startPosition;
+        int endPosition;
+        switch (index.getKind(enclosedExpression)) {
             case METHOD:
-                MethodTree methodTree = (MethodTree) enclosedExpressionTree;
-                int[] methodParameterSpan = treeUtilities.findMethodParameterSpan(methodTree);
-                if (methodParameterSpan[0] == tokenSequence.offset() || methodParameterSpan[1] == tokenSequence.offset()) {
-                    startPosition = methodParameterSpan[0];
-                    endPosition = methodParameterSpan[1] + 1;
+                int parameterStart = index.getParameterStart(enclosedExpression);
+                int parameterEnd = index.getParameterEnd(enclosedExpression);
+                if (parameterStart == tokenSequence.offset() || parameterEnd == tokenSequence.offset()) {
+                    startPosition = parameterStart;
+                    endPosition = parameterEnd + 1;
                 } else {
-                    startPosition = sourcePositions.getStartPosition(compilationUnitTree, currentPath.getLeaf());
-                    endPosition = sourcePositions.getEndPosition(compilationUnitTree, currentPath.getLeaf());
+                    startPosition = index.getStart(current);
+                    endPosition = index.getEnd(current);
                 }
                 break;
             case METHOD_INVOCATION:
-                MethodInvocationTree methodInvocationTree = (MethodInvocationTree) enclosedExpressionTree;
-                ExpressionTree methodSelect = methodInvocationTree.getMethodSelect();
-                long methodSelectEndPosition = sourcePositions.getEndPosition(compilationUnitTree, methodSelect);
-                tokenSequence.move((int) methodSelectEndPosition);
+                tokenSequence.move(index.getMethodSelectEnd(enclosedExpression));
                 while (tokenSequence.moveNext() && tokenSequence.token().id() == JavaTokenId.WHITESPACE) {
                 }
                 if (tokenSequence.token().id() == JavaTokenId.LPAREN) {
                     startPosition = tokenSequence.offset();
-                    endPosition = sourcePositions.getEndPosition(compilationUnitTree, methodInvocationTree);
                 } else {
-                    startPosition = sourcePositions.getStartPosition(compilationUnitTree, enclosedExpressionTree);
-                    endPosition = sourcePositions.getEndPosition(compilationUnitTree, enclosedExpressionTree);
+                    startPosition = index.getStart(enclosedExpression);
                 }
+                endPosition = index.getEnd(enclosedExpression);
                 break;
             default:
-                startPosition = sourcePositions.getStartPosition(compilationUnitTree, enclosedExpressionTree);
-                endPosition = sourcePositions.getEndPosition(compilationUnitTree, enclosedExpressionTree);
+                startPosition = index.getStart(enclosedExpression);
+                endPosition = index.getEnd(enclosedExpression);
         }
-        select((int) startPosition, (int) endPosition);
+        select(context, startPosition, endPosition);
     }
 
     @Override
-    protected void select(int startPosition, int endPosition) {
-        if (direction == Direction.BACKWARD) {
-            if (isTextSelected()) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
+        int selectionStart = context.getSelectionStart();
+        int selectionEnd = context.getSelectionEnd();
+        if (context.getDirection() == Direction.BACKWARD) {
+            if (context.isTextSelected()) {
                 if (selectionEnd < endPosition) {
-                    selectBackward(endPosition, startPosition);
-                    selectionStart = endPosition;
+                    selectBackward(context, endPosition, startPosition);
                 } else {
-                    selectBackward(selectionEnd, startPosition);
-                    selectionStart = selectionEnd;
+                    selectBackward(context, selectionEnd, startPosition);
                 }
-                selectionEnd = startPosition;
             } else {
-                selectBackward(endPosition, startPosition);
-                selectionStart = endPosition;
-                selectionEnd = startPosition;
+                selectBackward(context, endPosition, startPosition);
             }
         } else {
-            if (isTextSelected()) {
+            if (context.isTextSelected()) {
                 if (selectionStart < startPosition) {
-                    selectForward(selectionStart, endPosition);
-                    selectionEnd = endPosition;
+                    selectForward(context, selectionStart, endPosition);
                 } else {
-                    selectForward(startPosition, endPosition);
-                    selectionStart = startPosition;
-                    selectionEnd = endPosition;
+                    selectForward(context, startPosition, endPosition);
                 }
             } else {
-                selectForward(startPosition, endPosition);
-                selectionStart = startPosition;
-                selectionEnd = endPosition;
+                selectForward(context, startPosition, endPosition);
             }
         }
     }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.selection;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.lexer.TokenId;
+
+/**
+ * Fallback for the tokens no other strategy selects, e.g. {@code new}, {@code this}, {@code ->} or {@code ::}.
+ * Selects the innermost tree node enclosing the token that is larger than the current selection. Nothing is selected
+ * if only the compilation unit is left. The first use for each kind of token is logged at {@link Level#FINE}.
+ *
+ * @author Arthur Sadykov
+ */
+public class EnclosingNodeSelection extends Selection {
+
+    private static final Logger LOG = Logger.getLogger(EnclosingNodeSelection.class.getName());
+    private static final Set<JavaTokenId> LOGGED_TOKEN_IDS =
+            Collections.synchronizedSet(EnumSet.noneOf(JavaTokenId.class));
+
+    /**
+     * @return the empty set, the strategy is not registered for any token
+     */
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void select(SelectionContext context) {
+        logFirstUse(context.getTokenSequence().token().id());
+        SyntaxSpans index = context.getSyntaxSpans();
+        int node = index.pathFor(context.getTokenHierarchy(), context.getTokenSequence().offset() + 1);
+        while (node > 0 && index.getStart(node) >= context.getSelectionStart()
+                && index.getEnd(node) <= context.getSelectionEnd()) {
+            node = index.getParent(node);
+        }
+        if (node <= 0) {
+            return;
+        }
+        int start = Math.min(index.getStart(node), context.getSelectionStart());
+        int end = Math.max(index.getEnd(node), context.getSelectionEnd());
+        if (context.isBackwardDirection()) {
+            selectBackward(context, end, start);
+        } else {
+            selectForward(context, start, end);
+        }
+    }
+
+    private static void logFirstUse(TokenId id) {
+        if (LOG.isLoggable(Level.FINE) && id instanceof JavaTokenId && LOGGED_TOKEN_IDS.add((JavaTokenId) id)) {
+            LOG.log(Level.FINE, "No strategy for token {0}, selecting the enclosing tree node", id); //NOI18N
+        }
+    }
+}
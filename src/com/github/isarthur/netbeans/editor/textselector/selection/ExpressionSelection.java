@@ -15,15 +15,11 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -32,24 +28,28 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class ExpressionSelection extends Selection {
 
-    public ExpressionSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart,
-            int selectionEnd, Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.AMP, JavaTokenId.AMPAMP, JavaTokenId.AMPEQ, JavaTokenId.BANG, JavaTokenId.BANGEQ,
+            JavaTokenId.BAR, JavaTokenId.BARBAR, JavaTokenId.BAREQ, JavaTokenId.BOOLEAN, JavaTokenId.BYTE,
+            JavaTokenId.CARET, JavaTokenId.CARETEQ, JavaTokenId.CHAR, JavaTokenId.CLASS, JavaTokenId.DOUBLE,
+            JavaTokenId.ENUM, JavaTokenId.EQ, JavaTokenId.EQEQ, JavaTokenId.EXTENDS, JavaTokenId.FLOAT, JavaTokenId.GT,
+            JavaTokenId.GTEQ, JavaTokenId.GTGT, JavaTokenId.GTGTEQ, JavaTokenId.GTGTGT, JavaTokenId.GTGTGTEQ,
+            JavaTokenId.IMPLEMENTS, JavaTokenId.INT, JavaTokenId.INTERFACE, JavaTokenId.LONG, JavaTokenId.LT,
+            JavaTokenId.LTEQ, JavaTokenId.LTLT, JavaTokenId.LTLTEQ, JavaTokenId.MINUS, JavaTokenId.MINUSEQ,
+            JavaTokenId.MINUSMINUS, JavaTokenId.PERCENT, JavaTokenId.PERCENTEQ, JavaTokenId.PLUS, JavaTokenId.PLUSEQ,
+            JavaTokenId.PLUSPLUS, JavaTokenId.SHORT, JavaTokenId.SLASH, JavaTokenId.SLASHEQ, JavaTokenId.STAR,
+            JavaTokenId.STAREQ, JavaTokenId.THROWS, JavaTokenId.TILDE, JavaTokenId.VOID);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath expressionPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
-        if (expressionPath == null) {
-            return;
-        }
-        Tree expressionTree = expressionPath.getLeaf();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        long startPosition = sourcePositions.getStartPosition(compilationUnitTree, expressionTree);
-        long endPosition = sourcePositions.getEndPosition(compilationUnitTree, expressionTree);
-        select((int) startPosition, (int) endPosition);
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int expression = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset() + 1);
+        select(context, index.getStart(expression), index.getEnd(expression));
     }
 }
@@ -15,84 +15,84 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
+import java.util.EnumSet;
+import java.util.Set;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
+ * Selects an {@code if} keyword together with the condition and the then statement, or an {@code else} keyword
+ * together with the else statement. The else statement of an {@code else if} ends with the then statement of the
+ * nested if statement. The ranges are read from the span index, so braces are not required.
  *
  * @author Arthur Sadykov
  */
 public class IfStmtSelection extends Selection {
 
-    public IfStmtSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(JavaTokenId.IF, JavaTokenId.ELSE);
+    private static final Set<Tree.Kind> IF_KINDS = EnumSet.of(Tree.Kind.IF);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        if (tokenSequence.token().id() == JavaTokenId.IF || tokenSequence.token().id() == JavaTokenId.ELSE) {
-            long startPosition = tokenSequence.offset();
-            while (tokenSequence.moveNext()) {
-                if (tokenSequence.token().id() == JavaTokenId.LBRACE) {
-                    break;
-                }
-            }
-            if (tokenSequence.token().id() == JavaTokenId.LBRACE) {
-                TreePath blockPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
-                if (blockPath != null) {
-                    Tree blockTree = blockPath.getLeaf();
-                    long endPosition = sourcePositions.getEndPosition(compilationUnitTree, blockTree);
-                    select((int) startPosition, (int) endPosition);
-                }
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        int startPosition = tokenSequence.offset();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int ifStatement =
+                index.getEnclosing(index.pathFor(context.getTokenHierarchy(), startPosition + 1), IF_KINDS);
+        if (ifStatement < 0) {
+            return;
+        }
+        int statement;
+        if (tokenSequence.token().id() == JavaTokenId.IF) {
+            statement = getThenStatement(index, ifStatement);
+        } else {
+            statement = index.findChildAfter(ifStatement, startPosition + tokenSequence.token().length());
+            if (statement >= 0 && index.getKind(statement) == Tree.Kind.IF) {
+                statement = getThenStatement(index, statement);
             }
         }
+        if (statement >= 0) {
+            select(context, startPosition, index.getEnd(statement));
+        }
+    }
+
+    private static int getThenStatement(SyntaxSpans index, int ifStatement) {
+        int condition = index.findChildAfter(ifStatement, index.getStart(ifStatement) + 1);
+        return condition >= 0 ? index.findChildAfter(ifStatement, index.getEnd(condition)) : -1;
     }
 
     @Override
-    protected void select(int startPosition, int endPosition) {
-        if (direction == Direction.BACKWARD) {
-            if (isTextSelected()) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
+        int selectionStart = context.getSelectionStart();
+        int selectionEnd = context.getSelectionEnd();
+        if (context.getDirection() == Direction.BACKWARD) {
+            if (context.isTextSelected()) {
                 if (selectionEnd < endPosition) {
-                    selectBackward(endPosition, startPosition);
-                    selectionStart = endPosition;
+                    selectBackward(context, endPosition, startPosition);
                 } else {
-                    selectBackward(selectionEnd, startPosition);
-                    selectionStart = selectionEnd;
+                    selectBackward(context, selectionEnd, startPosition);
                 }
-                selectionEnd = startPosition;
             } else {
-                selectBackward(endPosition, startPosition);
-                selectionStart = endPosition;
-                selectionEnd = startPosition;
+                selectBackward(context, endPosition, startPosition);
             }
         } else {
-            if (isTextSelected()) {
+            if (context.isTextSelected()) {
                 if (selectionStart < startPosition) {
-                    selectForward(selectionStart, endPosition);
-                    selectionEnd = endPosition;
+                    selectForward(context, selectionStart, endPosition);
                 } else {
-                    selectForward(startPosition, endPosition);
-                    selectionStart = startPosition;
-                    selectionEnd = endPosition;
+                    selectForward(context, startPosition, endPosition);
                 }
             } else {
-                selectForward(startPosition, endPosition);
-                selectionStart = startPosition;
-                selectionEnd = endPosition;
+                selectForward(context, startPosition, endPosition);
             }
         }
     }
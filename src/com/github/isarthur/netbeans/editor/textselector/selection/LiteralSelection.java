@@ -15,16 +15,11 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
+import java.util.EnumSet;
+import java.util.Set;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -33,32 +28,35 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class LiteralSelection extends Selection {
 
-    public LiteralSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.STRING_LITERAL, JavaTokenId.INT_LITERAL, JavaTokenId.LONG_LITERAL, JavaTokenId.DOUBLE_LITERAL,
+            JavaTokenId.FLOAT_LITERAL, JavaTokenId.CHAR_LITERAL, JavaTokenId.FALSE, JavaTokenId.TRUE, JavaTokenId.NULL);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath literalPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
-        if (literalPath == null) {
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        if (isCaretInsideStringLiteral(context)) {
+            select(context, tokenSequence.offset() + 1, tokenSequence.offset() + tokenSequence.token().length() - 1);
             return;
         }
-        Tree literalTree = literalPath.getLeaf();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        int caretPosition = editor.getCaretPosition();
-        long startPosition = sourcePositions.getStartPosition(compilationUnitTree, literalTree);
-        long endPosition = sourcePositions.getEndPosition(compilationUnitTree, literalTree);
-        if (tokenSequence.token().id() == JavaTokenId.STRING_LITERAL) {
-            if (tokenSequence.offset() < caretPosition
-                    && caretPosition < tokenSequence.offset() + tokenSequence.token().length()) {
-                startPosition++;
-                endPosition--;
-            }
-        }
-        select((int) startPosition, (int) endPosition);
+        SyntaxSpans index = context.getSyntaxSpans();
+        int literal = index.pathFor(context.getTokenHierarchy(), tokenSequence.offset() + 1);
+        select(context, index.getStart(literal), index.getEnd(literal));
+    }
+
+    /**
+     * The interior of a string literal is delimited by its quotes, so it is selected without a syntax tree.
+     */
+    public boolean isCaretInsideStringLiteral(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        int caretPosition = context.getCaretPosition();
+        return tokenSequence.token().id() == JavaTokenId.STRING_LITERAL
+                && tokenSequence.offset() < caretPosition
+                && caretPosition < tokenSequence.offset() + tokenSequence.token().length();
     }
 }
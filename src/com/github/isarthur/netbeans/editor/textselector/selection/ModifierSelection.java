@@ -15,9 +15,10 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.source.CompilationController;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -26,15 +27,21 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class ModifierSelection extends Selection {
 
-    public ModifierSelection(JTextComponent editor, TokenSequence<?> ts, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, ts, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.ABSTRACT, JavaTokenId.DEFAULT, JavaTokenId.FINAL, JavaTokenId.NATIVE, JavaTokenId.PRIVATE,
+            JavaTokenId.PROTECTED, JavaTokenId.PUBLIC, JavaTokenId.STATIC, JavaTokenId.STRICTFP,
+            JavaTokenId.SYNCHRONIZED, JavaTokenId.TRANSIENT, JavaTokenId.TRANSITIVE, JavaTokenId.VOLATILE);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
         long startPosition = tokenSequence.offset();
         long endPosition = tokenSequence.offset() + tokenSequence.token().length();
-        select((int) startPosition, (int) endPosition);
+        select(context, (int) startPosition, (int) endPosition);
     }
 }
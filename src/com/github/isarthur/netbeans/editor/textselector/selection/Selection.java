@@ -15,83 +15,46 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.editor.document.LineDocument;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.lexer.TokenSequence;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
 
 /**
+ * Base of the built-in selection strategies. Instances are stateless, the state of a step is kept in its
+ * {@link SelectionContext}.
  *
  * @author Arthur Sadykov
  */
-public abstract class Selection {
+public abstract class Selection implements SelectionStrategy {
 
-    protected JTextComponent editor;
-    protected LineDocument document;
-    protected TokenSequence<?> tokenSequence;
-    protected int selectionStart;
-    protected int selectionEnd;
-    protected Direction direction;
-    protected final CompilationController controller;
-
-    protected Selection(JTextComponent editor, TokenSequence<?> ts, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        this.editor = editor;
-        document = (LineDocument) editor.getDocument();
-        editor.setDocument(document);
-        this.tokenSequence = ts;
-        this.selectionStart = selectionStart;
-        this.selectionEnd = selectionEnd;
-        this.direction = direction;
-        this.controller = controller;
-    }
-
-    public abstract void select();
-
-    protected void select(int startPosition, int endPosition) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
         int start;
         int end;
-        if (isTextSelected()) {
-            if (isBackwardDirection()) {
+        if (context.isTextSelected()) {
+            if (context.isBackwardDirection()) {
                 start = startPosition;
-                end = selectionEnd;
+                end = context.getSelectionEnd();
             } else {
-                start = selectionStart;
+                start = context.getSelectionStart();
                 end = endPosition;
             }
         } else {
             start = startPosition;
             end = endPosition;
         }
-        if (direction == Direction.BACKWARD) {
-            selectBackward(end, start);
-            selectionStart = end;
-            selectionEnd = start;
+        if (context.getDirection() == Direction.BACKWARD) {
+            selectBackward(context, end, start);
         } else {
-            selectForward(start, end);
-            selectionStart = start;
-            selectionEnd = end;
+            selectForward(context, start, end);
         }
     }
 
-    protected boolean isTextSelected() {
-        return selectionStart != selectionEnd;
-    }
-
-    protected boolean isBackwardDirection() {
-        return direction == Direction.BACKWARD;
-    }
-
-    protected void selectBackward(int right, int left) {
-        editor.select(left, right);
-        editor.setCaretPosition(right);
-        editor.moveCaretPosition(left);
+    protected void selectBackward(SelectionContext context, int right, int left) {
+        context.setSelectedRange(new SelectionRange(left, right, Direction.BACKWARD));
     }
 
-    protected void selectForward(int left, int right) {
-        editor.select(left, right);
-        editor.setCaretPosition(left);
-        editor.moveCaretPosition(right);
+    protected void selectForward(SelectionContext context, int left, int right) {
+        context.setSelectedRange(new SelectionRange(left, right, Direction.FORWARD));
     }
 }
@@ -15,16 +15,12 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
 import java.util.EnumSet;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
@@ -33,32 +29,25 @@ import org.netbeans.api.lexer.TokenSequence;
  */
 public class SemicolonSelection extends Selection {
 
-    public SemicolonSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart,
-            int selectionEnd, Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(JavaTokenId.SEMICOLON);
+    private static final Set<Tree.Kind> STATEMENT_KINDS = EnumSet.of(
+            Tree.Kind.ASSERT, Tree.Kind.BREAK, Tree.Kind.CONTINUE, Tree.Kind.EXPRESSION_STATEMENT, Tree.Kind.IMPORT,
+            Tree.Kind.METHOD, Tree.Kind.PACKAGE, Tree.Kind.RETURN, Tree.Kind.THROW, Tree.Kind.VARIABLE);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        TreePath expressionStatementPath = treeUtilities.pathFor(tokenSequence.offset());
-        if (expressionStatementPath == null) {
-            return;
-        }
-        expressionStatementPath = treeUtilities.getPathElementOfKind(
-                EnumSet.of(Tree.Kind.ASSERT, Tree.Kind.BREAK, Tree.Kind.CONTINUE, Tree.Kind.EXPRESSION_STATEMENT,
-                        Tree.Kind.IMPORT, Tree.Kind.METHOD, Tree.Kind.PACKAGE, Tree.Kind.RETURN, Tree.Kind.THROW,
-                        Tree.Kind.VARIABLE),
-                expressionStatementPath);
-        if (expressionStatementPath == null) {
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int expressionStatement = index.getEnclosing(
+                index.pathFor(context.getTokenHierarchy(), tokenSequence.offset()), STATEMENT_KINDS);
+        if (expressionStatement < 0) {
             return;
         }
-        Tree expressionStatementTree = expressionStatementPath.getLeaf();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        long startPosition = sourcePositions.getStartPosition(compilationUnitTree, expressionStatementTree);
-        long endPosition = sourcePositions.getEndPosition(compilationUnitTree, expressionStatementTree);
-        select((int) startPosition, (int) endPosition);
+        select(context, index.getStart(expressionStatement), index.getEnd(expressionStatement));
     }
 }
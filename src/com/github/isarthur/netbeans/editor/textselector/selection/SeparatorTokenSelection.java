@@ -15,43 +15,55 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
 import com.github.isarthur.netbeans.editor.textselector.SelectionFactory;
-import com.github.isarthur.netbeans.editor.textselector.exception.UnsupportedTokenException;
-import javax.swing.text.JTextComponent;
-import org.netbeans.api.java.source.CompilationController;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
 import org.netbeans.api.lexer.TokenSequence;
-import org.openide.util.Exceptions;
 
 /**
+ * Skips the separators in the direction of the step and selects the first token following them. Nothing is selected
+ * if there is no such token within {@value #MAX_SKIPPED_TOKENS} tokens.
  *
  * @author Arthur Sadykov
  */
 public class SeparatorTokenSelection extends Selection {
 
-    public SeparatorTokenSelection(JTextComponent editor, TokenSequence<?> ts, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, ts, selectionStart, selectionEnd, direction, controller);
+    public static final int MAX_SKIPPED_TOKENS = 256;
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.COMMA, JavaTokenId.DOT, JavaTokenId.WHITESPACE);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        if (direction == Direction.BACKWARD) {
-            if (tokenSequence.movePrevious()) {
-                try {
-                    SelectionFactory.create(editor, tokenSequence, selectionStart, selectionEnd, direction, controller).select();
-                } catch (UnsupportedTokenException ex) {
-                    Exceptions.printStackTrace(ex);
-                }
+    public void select(SelectionContext context) {
+        if (!skipSeparators(context)) {
+            return;
+        }
+        SelectionFactory.getStrategy(context.getTokenSequence()).select(context);
+    }
+
+    /**
+     * Moves the token sequence of the context from the current separator to the first token that is not a separator.
+     *
+     * @return {@code true} if such a token has been found, {@code false} if the sequence ran out of tokens or the
+     * scan reached {@link #MAX_SKIPPED_TOKENS}
+     */
+    public boolean skipSeparators(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        boolean backward = context.isBackwardDirection();
+        for (int skipped = 0; skipped < MAX_SKIPPED_TOKENS; skipped++) {
+            if (!TOKEN_IDS.contains(tokenSequence.token().id())) {
+                return true;
             }
-        } else {
-            if (tokenSequence.moveNext()) {
-                try {
-                    SelectionFactory.create(editor, tokenSequence, selectionStart, selectionEnd, direction, controller).select();
-                } catch (UnsupportedTokenException ex) {
-                    Exceptions.printStackTrace(ex);
-                }
+            if (!(backward ? tokenSequence.movePrevious() : tokenSequence.moveNext())) {
+                return false;
             }
         }
+        return false;
     }
 }
@@ -15,86 +15,81 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.selection;
 
-import com.github.isarthur.netbeans.editor.textselector.Direction;
-import com.sun.source.tree.CompilationUnitTree;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SyntaxSpans;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
-import javax.swing.text.JTextComponent;
+import java.util.EnumSet;
+import java.util.Set;
 import org.netbeans.api.java.lexer.JavaTokenId;
-import org.netbeans.api.java.source.CompilationController;
-import org.netbeans.api.java.source.TreeUtilities;
 import org.netbeans.api.lexer.TokenSequence;
 
 /**
+ * Selects a {@code try} keyword together with the resources and the block, a catch clause, or a {@code finally}
+ * keyword together with its block. The ranges are read from the span index, so braces inside the resources do not
+ * end the range.
  *
  * @author Arthur Sadykov
  */
 public class TryStmtSelection extends Selection {
 
-    public TryStmtSelection(JTextComponent editor, TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd,
-            Direction direction, CompilationController controller) {
-        super(editor, tokenSequence, selectionStart, selectionEnd, direction, controller);
+    private static final Set<JavaTokenId> TOKEN_IDS = EnumSet.of(
+            JavaTokenId.TRY, JavaTokenId.CATCH, JavaTokenId.FINALLY);
+    private static final Set<Tree.Kind> TRY_KINDS = EnumSet.of(Tree.Kind.TRY);
+    private static final Set<Tree.Kind> CATCH_KINDS = EnumSet.of(Tree.Kind.CATCH);
+
+    @Override
+    public Set<JavaTokenId> getTokenIds() {
+        return TOKEN_IDS;
     }
 
     @Override
-    public void select() {
-        TreeUtilities treeUtilities = controller.getTreeUtilities();
-        Trees trees = controller.getTrees();
-        SourcePositions sourcePositions = trees.getSourcePositions();
-        CompilationUnitTree compilationUnitTree = controller.getCompilationUnit();
-        if (tokenSequence.token().id() == JavaTokenId.TRY
-                || tokenSequence.token().id() == JavaTokenId.CATCH
-                || tokenSequence.token().id() == JavaTokenId.FINALLY) {
-            long startPosition = tokenSequence.offset();
-            while (tokenSequence.moveNext()) {
-                if (tokenSequence.token().id() == JavaTokenId.LBRACE) {
-                    break;
-                }
-            }
-            if (tokenSequence.token().id() == JavaTokenId.LBRACE) {
-                TreePath blockPath = treeUtilities.pathFor(tokenSequence.offset() + 1);
-                if (blockPath != null) {
-                    Tree blockTree = blockPath.getLeaf();
-                    long endPosition = sourcePositions.getEndPosition(compilationUnitTree, blockTree);
-                    select((int) startPosition, (int) endPosition);
-                }
+    public void select(SelectionContext context) {
+        TokenSequence<?> tokenSequence = context.getTokenSequence();
+        JavaTokenId id = (JavaTokenId) tokenSequence.token().id();
+        int startPosition = tokenSequence.offset();
+        SyntaxSpans index = context.getSyntaxSpans();
+        int node = index.pathFor(context.getTokenHierarchy(), startPosition + 1);
+        int clause;
+        if (id == JavaTokenId.CATCH) {
+            clause = index.getEnclosing(node, CATCH_KINDS);
+        } else {
+            int tryStatement = index.getEnclosing(node, TRY_KINDS);
+            if (tryStatement < 0) {
+                return;
             }
+            clause = id == JavaTokenId.TRY
+                    ? index.findChildOfKind(tryStatement, Tree.Kind.BLOCK)
+                    : index.findChildAfter(tryStatement, startPosition + tokenSequence.token().length());
+        }
+        if (clause >= 0) {
+            select(context, startPosition, index.getEnd(clause));
         }
     }
 
     @Override
-    protected void select(int startPosition, int endPosition) {
-        if (direction == Direction.BACKWARD) {
-            if (isTextSelected()) {
+    protected void select(SelectionContext context, int startPosition, int endPosition) {
+        int selectionStart = context.getSelectionStart();
+        int selectionEnd = context.getSelectionEnd();
+        if (context.getDirection() == Direction.BACKWARD) {
+            if (context.isTextSelected()) {
                 if (selectionEnd < endPosition) {
-                    selectBackward(endPosition, startPosition);
-                    selectionStart = endPosition;
+                    selectBackward(context, endPosition, startPosition);
                 } else {
-                    selectBackward(selectionEnd, startPosition);
-                    selectionStart = selectionEnd;
+                    selectBackward(context, selectionEnd, startPosition);
                 }
-                selectionEnd = startPosition;
             } else {
-                selectBackward(endPosition, startPosition);
-                selectionStart = endPosition;
-                selectionEnd = startPosition;
+                selectBackward(context, endPosition, startPosition);
             }
         } else {
-            if (isTextSelected()) {
+            if (context.isTextSelected()) {
                 if (selectionStart < startPosition) {
-                    selectForward(selectionStart, endPosition);
-                    selectionEnd = endPosition;
+                    selectForward(context, selectionStart, endPosition);
                 } else {
-                    selectForward(startPosition, endPosition);
-                    selectionStart = startPosition;
-                    selectionEnd = endPosition;
+                    selectForward(context, startPosition, endPosition);
                 }
             } else {
-                selectForward(startPosition, endPosition);
-                selectionStart = startPosition;
-                selectionEnd = endPosition;
+                selectForward(context, startPosition, endPosition);
             }
         }
     }
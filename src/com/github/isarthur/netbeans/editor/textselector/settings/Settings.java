@@ -15,6 +15,7 @@
  */
 package com.github.isarthur.netbeans.editor.textselector.settings;
 
+import java.util.prefs.PreferenceChangeListener;
 import org.openide.util.NbPreferences;
 
 /**
@@ -24,6 +25,10 @@ import org.openide.util.NbPreferences;
 public class Settings {
 
     private static final String COPY_TO_CLIPBOARD = "copyToClipboard";
+    private static final String PREFETCH = "prefetch";
+    private static final String PREFETCH_DELAY = "prefetchDelay";
+    private static final String SLOW_SELECTION_THRESHOLD = "slowSelectionThreshold";
+    private static final String SHOW_LATENCY_IN_STATUS_BAR = "showLatencyInStatusBar";
 
     private Settings() {
     }
@@ -31,4 +36,28 @@ public class Settings {
     public static boolean copyToClipboard() {
         return NbPreferences.forModule(Settings.class).getBoolean(COPY_TO_CLIPBOARD, true);
     }
+
+    public static boolean prefetch() {
+        return NbPreferences.forModule(Settings.class).getBoolean(PREFETCH, true);
+    }
+
+    public static int prefetchDelay() {
+        return NbPreferences.forModule(Settings.class).getInt(PREFETCH_DELAY, 500);
+    }
+
+    /**
+     * @return the duration of a press in milliseconds above which it is logged, {@code 0} if slow presses are not
+     * logged
+     */
+    public static int slowSelectionThreshold() {
+        return NbPreferences.forModule(Settings.class).getInt(SLOW_SELECTION_THRESHOLD, 200);
+    }
+
+    public static boolean showLatencyInStatusBar() {
+        return NbPreferences.forModule(Settings.class).getBoolean(SHOW_LATENCY_IN_STATUS_BAR, false);
+    }
+
+    public static void addPreferenceChangeListener(PreferenceChangeListener listener) {
+        NbPreferences.forModule(Settings.class).addPreferenceChangeListener(listener);
+    }
 }
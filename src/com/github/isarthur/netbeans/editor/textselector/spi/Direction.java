@@ -13,7 +13,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.github.isarthur.netbeans.editor.textselector;
+package com.github.isarthur.netbeans.editor.textselector.spi;
 
 /**
  *
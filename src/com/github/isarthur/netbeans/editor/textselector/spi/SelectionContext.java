@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.spi;
+
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * State of a single extend selection step passed to a {@link SelectionStrategy}. Strategies are shared, so everything
+ * that belongs to the step lives here, including its result.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SelectionContext {
+
+    private final TokenSequence<?> tokenSequence;
+    private final int selectionStart;
+    private final int selectionEnd;
+    private final int caretPosition;
+    private final Direction direction;
+    private final CompilationController controller;
+    private final TokenHierarchy<?> tokenHierarchy;
+    private SyntaxSpans syntaxSpans;
+    private SelectionRange selectedRange;
+
+    public SelectionContext(TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd, int caretPosition,
+            Direction direction, CompilationController controller) {
+        this.tokenSequence = tokenSequence;
+        this.selectionStart = selectionStart;
+        this.selectionEnd = selectionEnd;
+        this.caretPosition = caretPosition;
+        this.direction = direction;
+        this.controller = controller;
+        this.tokenHierarchy = controller != null ? controller.getTokenHierarchy() : null;
+    }
+
+    /**
+     * Creates the context of a step computed without a parser, from the token hierarchy of the document and, if
+     * available, the syntax spans loaded from the persistent cache.
+     */
+    public SelectionContext(TokenSequence<?> tokenSequence, int selectionStart, int selectionEnd, int caretPosition,
+            Direction direction, TokenHierarchy<?> tokenHierarchy, SyntaxSpans syntaxSpans) {
+        this.tokenSequence = tokenSequence;
+        this.selectionStart = selectionStart;
+        this.selectionEnd = selectionEnd;
+        this.caretPosition = caretPosition;
+        this.direction = direction;
+        this.controller = null;
+        this.tokenHierarchy = tokenHierarchy;
+        this.syntaxSpans = syntaxSpans;
+    }
+
+    /**
+     * @return the token sequence positioned at the token the step starts from
+     */
+    public TokenSequence<?> getTokenSequence() {
+        return tokenSequence;
+    }
+
+    public int getSelectionStart() {
+        return selectionStart;
+    }
+
+    public int getSelectionEnd() {
+        return selectionEnd;
+    }
+
+    public int getCaretPosition() {
+        return caretPosition;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the controller of the parsed source or {@code null} if the step is computed without a parser
+     */
+    public CompilationController getController() {
+        return controller;
+    }
+
+    public TokenHierarchy<?> getTokenHierarchy() {
+        return tokenHierarchy;
+    }
+
+    /**
+     * @return the syntax spans of the source, built from the controller on the first use, or {@code null} if the step
+     * is computed from the tokens alone
+     */
+    public SyntaxSpans getSyntaxSpans() {
+        if (syntaxSpans == null && controller != null) {
+            syntaxSpans = SpanIndex.get(controller);
+        }
+        return syntaxSpans;
+    }
+
+    public boolean isTextSelected() {
+        return selectionStart != selectionEnd;
+    }
+
+    public boolean isBackwardDirection() {
+        return direction == Direction.BACKWARD;
+    }
+
+    /**
+     * @return the range selected by the strategy or {@code null} if nothing could be selected
+     */
+    public SelectionRange getSelectedRange() {
+        return selectedRange;
+    }
+
+    public void setSelectedRange(SelectionRange selectedRange) {
+        this.selectedRange = selectedRange;
+    }
+}
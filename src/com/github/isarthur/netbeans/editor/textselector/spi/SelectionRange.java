@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.spi;
+
+import java.util.Objects;
+
+/**
+ * Immutable result of a single extend selection step. The caret (dot) is placed at the start of the range when the
+ * direction is {@link Direction#BACKWARD} and at its end otherwise.
+ *
+ * @author Arthur Sadykov
+ */
+public final class SelectionRange {
+
+    private final int start;
+    private final int end;
+    private final Direction direction;
+
+    public SelectionRange(int start, int end, Direction direction) {
+        this.start = start;
+        this.end = end;
+        this.direction = direction;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public int getDot() {
+        return direction == Direction.BACKWARD ? start : end;
+    }
+
+    public int getMark() {
+        return direction == Direction.BACKWARD ? end : start;
+    }
+
+    public boolean isEmpty() {
+        return start == end;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SelectionRange)) {
+            return false;
+        }
+        SelectionRange other = (SelectionRange) obj;
+        return start == other.start && end == other.end && direction == other.direction;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end, direction);
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionRange[" + start + ", " + end + ", " + direction + "]"; //NOI18N
+    }
+}
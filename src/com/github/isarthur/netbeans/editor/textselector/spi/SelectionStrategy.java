@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.spi;
+
+import java.util.Set;
+import org.netbeans.api.java.lexer.JavaTokenId;
+
+/**
+ * Computes the next selection for the tokens it handles. Implementations must be stateless, a single instance serves
+ * every step of every editor, possibly from several threads.
+ * <p>
+ * Other modules can contribute strategies by registering them in the MIME lookup of Java sources, e.g. with
+ * {@code @MimeRegistration(mimeType = "text/x-java", service = SelectionStrategy.class)}. A registered strategy takes
+ * precedence over the built-in one for the same token.
+ *
+ * @author Arthur Sadykov
+ */
+public interface SelectionStrategy {
+
+    /**
+     * @return the tokens handled by this strategy
+     */
+    Set<JavaTokenId> getTokenIds();
+
+    /**
+     * Selects the range for the token the token sequence of the context is positioned at and stores it by
+     * {@link SelectionContext#setSelectedRange}.
+     */
+    void select(SelectionContext context);
+}
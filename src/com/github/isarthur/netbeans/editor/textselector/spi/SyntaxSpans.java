@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.spi;
+
+import com.sun.source.tree.Tree;
+import java.util.Set;
+import org.netbeans.api.lexer.TokenHierarchy;
+
+/**
+ * Spans of the syntax tree of the source a {@link SelectionContext} belongs to. Nodes are identified by {@code int}
+ * handles that are valid only for the instance that returned them; {@code -1} stands for no node.
+ *
+ * @author Arthur Sadykov
+ */
+public interface SyntaxSpans {
+
+    /**
+     * Equivalent of {@code TreeUtilities.pathFor(int)}.
+     *
+     * @param tokenHierarchy the token hierarchy of the source
+     * @return the leaf node of the path
+     */
+    int pathFor(TokenHierarchy<?> tokenHierarchy, int position);
+
+    /**
+     * @return the node itself or its nearest enclosing node of one of the kinds, {@code -1} if there is none
+     */
+    int getEnclosing(int node, Set<Tree.Kind> enclosingKinds);
+
+    /**
+     * @return the nearest enclosing node or {@code -1} for the compilation unit
+     */
+    int getParent(int node);
+
+    /**
+     * @return the first child of the node that starts at or after the position or {@code -1} if there is none
+     */
+    int findChildAfter(int node, int position);
+
+    /**
+     * @return the first child of the node of the given kind or {@code -1} if there is none
+     */
+    int findChildOfKind(int node, Tree.Kind kind);
+
+    Tree.Kind getKind(int node);
+
+    int getStart(int node);
+
+    int getEnd(int node);
+
+    /**
+     * @return the start of the name of the node or {@code -1} if the node has no name
+     */
+    int getNameStart(int node);
+
+    /**
+     * @return the end of the name of the node or {@code -1} if the node has no name
+     */
+    int getNameEnd(int node);
+
+    /**
+     * @return the offset of the opening parenthesis of the parameters of a method or {@code -1}
+     */
+    int getParameterStart(int node);
+
+    /**
+     * @return the offset of the closing parenthesis of the parameters of a method or {@code -1}
+     */
+    int getParameterEnd(int node);
+
+    /**
+     * @return the end of the method select of a method invocation or {@code -1}
+     */
+    int getMethodSelectEnd(int node);
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.ui;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTiming;
+import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.util.concurrent.TimeUnit;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import org.openide.awt.StatusLineElementProvider;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Shows the duration of the last Extend Selection press in the status bar together with where the selection came
+ * from: the cached ladder, the tokens or the stored span index of the document, or a fresh parse. Shown only if
+ * {@link Settings#showLatencyInStatusBar()} is on.
+ *
+ * @author Arthur Sadykov
+ */
+@ServiceProvider(service = StatusLineElementProvider.class, position = 600)
+@Messages({
+    "LBL_Origin_LADDER=cached",
+    "LBL_Origin_TOKENS=tokens",
+    "LBL_Origin_STORED_INDEX=stored index",
+    "LBL_Origin_PARSER=parse",
+    "HINT_SelectionLatency=Duration of the last Extend Selection and where the selection came from"
+})
+public class SelectionLatencyStatusLine implements StatusLineElementProvider {
+
+    private static volatile LatencyIndicator indicator;
+
+    @Override
+    public Component getStatusLineElement() {
+        LatencyIndicator result = indicator;
+        if (result == null) {
+            result = new LatencyIndicator();
+            indicator = result;
+        }
+        return result;
+    }
+
+    /**
+     * Shows the timing of a press. Must be called in the event dispatch thread.
+     */
+    public static void selectionExtended(SelectionTiming timing) {
+        LatencyIndicator result = indicator;
+        if (result != null && result.isVisible()) {
+            result.update(timing);
+        }
+    }
+
+    /**
+     * Paints the timing straight from its fields into a reused buffer, so an update allocates nothing and the
+     * repaints of several updates within one paint cycle are coalesced by the repaint manager.
+     */
+    static final class LatencyIndicator extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+        private static final String PROTOTYPE = "9999.9 ms"; //NOI18N
+        private static final char[] MILLISECONDS = " ms, ".toCharArray(); //NOI18N
+        private final char[][] originLabels;
+        private final char[] buffer;
+        private long totalTenthsOfMillisecond = -1;
+        private SelectionTiming.Origin origin;
+
+        LatencyIndicator() {
+            SelectionTiming.Origin[] origins = SelectionTiming.Origin.values();
+            originLabels = new char[origins.length][];
+            int maxLabelLength = 0;
+            for (SelectionTiming.Origin value : origins) {
+                originLabels[value.ordinal()] = getLabel(value).toCharArray();
+                maxLabelLength = Math.max(maxLabelLength, originLabels[value.ordinal()].length);
+            }
+            buffer = new char[20 + MILLISECONDS.length + maxLabelLength];
+            setBorder(BorderFactory.createEmptyBorder(0, 4, 0, 4));
+            setToolTipText(Bundle.HINT_SelectionLatency());
+            setVisible(Settings.showLatencyInStatusBar());
+            Settings.addPreferenceChangeListener(event -> SwingUtilities.invokeLater(() -> {
+                boolean visible = Settings.showLatencyInStatusBar();
+                if (visible != isVisible()) {
+                    setVisible(visible);
+                    revalidate();
+                }
+            }));
+        }
+
+        void update(SelectionTiming timing) {
+            long total = TimeUnit.NANOSECONDS.toMicros(timing.getTotalTime()) / 100;
+            if (total == totalTenthsOfMillisecond && timing.getOrigin() == origin) {
+                return;
+            }
+            totalTenthsOfMillisecond = total;
+            origin = timing.getOrigin();
+            repaint();
+        }
+
+        /**
+         * @return the text painted for the last update, {@code null} before the first one
+         */
+        String getText() {
+            return origin != null ? new String(buffer, 0, format()) : null;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            if (isPreferredSizeSet()) {
+                return super.getPreferredSize();
+            }
+            FontMetrics metrics = getFontMetrics(getFont());
+            int maxLabelWidth = 0;
+            for (char[] label : originLabels) {
+                maxLabelWidth = Math.max(maxLabelWidth, metrics.charsWidth(label, 0, label.length));
+            }
+            Insets insets = getInsets();
+            return new Dimension(
+                    insets.left + metrics.stringWidth(PROTOTYPE) + metrics.charsWidth(MILLISECONDS, 3, 2)
+                    + maxLabelWidth + insets.right,
+                    insets.top + metrics.getHeight() + insets.bottom);
+        }
+
+        @Override
+        protected void paintComponent(Graphics graphics) {
+            if (origin == null) {
+                return;
+            }
+            int length = format();
+            FontMetrics metrics = graphics.getFontMetrics(getFont());
+            Insets insets = getInsets();
+            int y = insets.top + (getHeight() - insets.top - insets.bottom - metrics.getHeight()) / 2
+                    + metrics.getAscent();
+            graphics.setFont(getFont());
+            graphics.setColor(getForeground());
+            graphics.drawChars(buffer, 0, length, insets.left, y);
+        }
+
+        /**
+         * Writes e.g. {@code 12.3 ms, parse} to the buffer.
+         *
+         * @return the number of characters written
+         */
+        private int format() {
+            long value = totalTenthsOfMillisecond;
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int length = Math.max(digits, 2) + 1;
+            int position = length;
+            buffer[--position] = (char) ('0' + value % 10);
+            buffer[--position] = '.';
+            value /= 10;
+            do {
+                buffer[--position] = (char) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            System.arraycopy(MILLISECONDS, 0, buffer, length, MILLISECONDS.length);
+            length += MILLISECONDS.length;
+            char[] label = originLabels[origin.ordinal()];
+            System.arraycopy(label, 0, buffer, length, label.length);
+            return length + label.length;
+        }
+
+        private static String getLabel(SelectionTiming.Origin origin) {
+            switch (origin) {
+                case LADDER:
+                    return Bundle.LBL_Origin_LADDER();
+                case TOKENS:
+                    return Bundle.LBL_Origin_TOKENS();
+                case STORED_INDEX:
+                    return Bundle.LBL_Origin_STORED_INDEX();
+                default:
+                    return Bundle.LBL_Origin_PARSER();
+            }
+        }
+    }
+}
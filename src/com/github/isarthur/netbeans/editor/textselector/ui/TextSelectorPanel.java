@@ -22,6 +22,10 @@ class TextSelectorPanel extends javax.swing.JPanel {
 
     private static final long serialVersionUID = 4080546854448278747L;
     private static final String COPY_TO_CLIPBOARD = "copyToClipboard";
+    private static final String PREFETCH = "prefetch";
+    private static final String PREFETCH_DELAY = "prefetchDelay";
+    private static final String SLOW_SELECTION_THRESHOLD = "slowSelectionThreshold";
+    private static final String SHOW_LATENCY_IN_STATUS_BAR = "showLatencyInStatusBar";
     private final TextSelectorOptionsPanelController controller;
 
     TextSelectorPanel(TextSelectorOptionsPanelController controller) {
@@ -40,16 +44,51 @@ class TextSelectorPanel extends javax.swing.JPanel {
     private void initComponents() {
 
         copyToClipboardCheckBox = new javax.swing.JCheckBox();
+        prefetchCheckBox = new javax.swing.JCheckBox();
+        prefetchDelaySpinner = new javax.swing.JSpinner();
+        prefetchDelayLabel = new javax.swing.JLabel();
+        slowSelectionThresholdLabel = new javax.swing.JLabel();
+        slowSelectionThresholdSpinner = new javax.swing.JSpinner();
+        slowSelectionThresholdUnitLabel = new javax.swing.JLabel();
+        showLatencyCheckBox = new javax.swing.JCheckBox();
 
         org.openide.awt.Mnemonics.setLocalizedText(copyToClipboardCheckBox, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.copyToClipboardCheckBox.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(prefetchCheckBox, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.prefetchCheckBox.text")); // NOI18N
+
+        prefetchDelaySpinner.setModel(new javax.swing.SpinnerNumberModel(500, 0, 10000, 100));
+
+        org.openide.awt.Mnemonics.setLocalizedText(prefetchDelayLabel, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.prefetchDelayLabel.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(slowSelectionThresholdLabel, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.slowSelectionThresholdLabel.text")); // NOI18N
+
+        slowSelectionThresholdSpinner.setModel(new javax.swing.SpinnerNumberModel(200, 0, 60000, 50));
+
+        org.openide.awt.Mnemonics.setLocalizedText(slowSelectionThresholdUnitLabel, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.slowSelectionThresholdUnitLabel.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(showLatencyCheckBox, org.openide.util.NbBundle.getMessage(TextSelectorPanel.class, "TextSelectorPanel.showLatencyCheckBox.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
-                .addComponent(copyToClipboardCheckBox)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(copyToClipboardCheckBox)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(prefetchCheckBox)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(prefetchDelaySpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 70, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(prefetchDelayLabel))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(slowSelectionThresholdLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(slowSelectionThresholdSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 70, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(slowSelectionThresholdUnitLabel))
+                    .addComponent(showLatencyCheckBox))
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         layout.setVerticalGroup(
@@ -57,17 +96,38 @@ class TextSelectorPanel extends javax.swing.JPanel {
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
                 .addComponent(copyToClipboardCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(prefetchCheckBox)
+                    .addComponent(prefetchDelaySpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(prefetchDelayLabel))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(slowSelectionThresholdLabel)
+                    .addComponent(slowSelectionThresholdSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(slowSelectionThresholdUnitLabel))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(showLatencyCheckBox)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
 
     void load() {
-        copyToClipboardCheckBox.setSelected(copyToClipboard(getPreferencesForModule()));
+        Preferences preferences = getPreferencesForModule();
+        copyToClipboardCheckBox.setSelected(copyToClipboard(preferences));
+        prefetchCheckBox.setSelected(prefetch(preferences));
+        prefetchDelaySpinner.setValue(prefetchDelay(preferences));
+        slowSelectionThresholdSpinner.setValue(slowSelectionThreshold(preferences));
+        showLatencyCheckBox.setSelected(showLatencyInStatusBar(preferences));
     }
 
     void store() {
         Preferences preferences = getPreferencesForModule();
         preferences.putBoolean(COPY_TO_CLIPBOARD, copyToClipboardCheckBox.isSelected());
+        preferences.putBoolean(PREFETCH, prefetchCheckBox.isSelected());
+        preferences.putInt(PREFETCH_DELAY, (Integer) prefetchDelaySpinner.getValue());
+        preferences.putInt(SLOW_SELECTION_THRESHOLD, (Integer) slowSelectionThresholdSpinner.getValue());
+        preferences.putBoolean(SHOW_LATENCY_IN_STATUS_BAR, showLatencyCheckBox.isSelected());
     }
 
     boolean valid() {
@@ -81,7 +141,30 @@ class TextSelectorPanel extends javax.swing.JPanel {
     private boolean copyToClipboard(Preferences preferences) {
         return preferences.getBoolean(COPY_TO_CLIPBOARD, true);
     }
+
+    private boolean prefetch(Preferences preferences) {
+        return preferences.getBoolean(PREFETCH, true);
+    }
+
+    private int prefetchDelay(Preferences preferences) {
+        return preferences.getInt(PREFETCH_DELAY, 500);
+    }
+
+    private int slowSelectionThreshold(Preferences preferences) {
+        return preferences.getInt(SLOW_SELECTION_THRESHOLD, 200);
+    }
+
+    private boolean showLatencyInStatusBar(Preferences preferences) {
+        return preferences.getBoolean(SHOW_LATENCY_IN_STATUS_BAR, false);
+    }
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JCheckBox copyToClipboardCheckBox;
+    private javax.swing.JCheckBox prefetchCheckBox;
+    private javax.swing.JLabel prefetchDelayLabel;
+    private javax.swing.JSpinner prefetchDelaySpinner;
+    private javax.swing.JCheckBox showLatencyCheckBox;
+    private javax.swing.JLabel slowSelectionThresholdLabel;
+    private javax.swing.JSpinner slowSelectionThresholdSpinner;
+    private javax.swing.JLabel slowSelectionThresholdUnitLabel;
     // End of variables declaration//GEN-END:variables
 }
@@ -0,0 +1,231 @@
+package corpus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A recursive descent parser with nested control flow, switch statements, labeled loops and exception handling.
+ */
+public class ExpressionParser {
+
+    private static final String OPERATORS = "+-*/%^";
+    private final Map<String, Double> variables = new HashMap<>();
+    private final String input;
+    private int position;
+
+    public ExpressionParser(String input) {
+        this.input = input;
+    }
+
+    public static class ParseException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private final int offset;
+
+        public ParseException(String message, int offset) {
+            super(message + " at " + offset);
+            this.offset = offset;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+    }
+
+    public void define(String name, double value) {
+        variables.put(name, value);
+    }
+
+    public double parse() {
+        double value = parseExpression();
+        skipWhitespace();
+        if (position < input.length()) {
+            throw new ParseException("Unexpected '" + input.charAt(position) + "'", position);
+        }
+        return value;
+    }
+
+    private double parseExpression() {
+        double value = parseTerm();
+        while (true) {
+            skipWhitespace();
+            if (accept('+')) {
+                value += parseTerm();
+            } else if (accept('-')) {
+                value -= parseTerm();
+            } else {
+                return value;
+            }
+        }
+    }
+
+    private double parseTerm() {
+        double value = parseFactor();
+        loop:
+        for (;;) {
+            skipWhitespace();
+            char operator = position < input.length() ? input.charAt(position) : '\0';
+            switch (operator) {
+                case '*':
+                    position++;
+                    value *= parseFactor();
+                    break;
+                case '/': {
+                    position++;
+                    double divisor = parseFactor();
+                    if (divisor == 0) {
+                        throw new ParseException("Division by zero", position);
+                    }
+                    value /= divisor;
+                    break;
+                }
+                case '%':
+                    position++;
+                    value %= parseFactor();
+                    break;
+                default:
+                    break loop;
+            }
+        }
+        return value;
+    }
+
+    private double parseFactor() {
+        skipWhitespace();
+        double base = parseUnary();
+        skipWhitespace();
+        return accept('^') ? Math.pow(base, parseFactor()) : base;
+    }
+
+    private double parseUnary() {
+        if (accept('-')) {
+            return -parseUnary();
+        }
+        if (accept('(')) {
+            double value = parseExpression();
+            skipWhitespace();
+            if (!accept(')')) {
+                throw new ParseException("Missing ')'", position);
+            }
+            return value;
+        }
+        int start = position;
+        if (position < input.length() && Character.isLetter(input.charAt(position))) {
+            while (position < input.length() && Character.isLetterOrDigit(input.charAt(position))) {
+                position++;
+            }
+            String name = input.substring(start, position);
+            skipWhitespace();
+            if (accept('(')) {
+                double argument = parseExpression();
+                if (!accept(')')) {
+                    throw new ParseException("Missing ')' after argument of " + name, position);
+                }
+                return call(name, argument, start);
+            }
+            Double value = variables.get(name);
+            if (value == null) {
+                throw new ParseException("Unknown variable \"" + name + "\"", start);
+            }
+            return value;
+        }
+        while (position < input.length()
+                && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+            position++;
+        }
+        if (start == position) {
+            throw new ParseException("Number expected", position);
+        }
+        try {
+            return Double.parseDouble(input.substring(start, position));
+        } catch (NumberFormatException ex) {
+            throw new ParseException("Malformed number", start);
+        } finally {
+            skipWhitespace();
+        }
+    }
+
+    private static double call(String name, double argument, int offset) {
+        switch (name) {
+            case "sqrt":
+                return Math.sqrt(argument);
+            case "abs":
+                return Math.abs(argument);
+            case "sin":
+                return Math.sin(argument);
+            case "cos":
+                return Math.cos(argument);
+            case "log":
+                if (argument <= 0) {
+                    throw new ParseException("Logarithm of a non-positive number", offset);
+                }
+                return Math.log(argument);
+            default:
+                throw new ParseException("Unknown function " + name, offset);
+        }
+    }
+
+    private boolean accept(char expected) {
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    public static String toPostfix(String infix) {
+        StringBuilder output = new StringBuilder();
+        Deque<Character> stack = new ArrayDeque<>();
+        for (int i = 0; i < infix.length(); i++) {
+            char c = infix.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                output.append(c);
+            } else if (c == '(') {
+                stack.push(c);
+            } else if (c == ')') {
+                while (!stack.isEmpty() && stack.peek() != '(') {
+                    output.append(stack.pop());
+                }
+                stack.pop();
+            } else if (OPERATORS.indexOf(c) >= 0) {
+                while (!stack.isEmpty() && stack.peek() != '('
+                        && precedence(stack.peek()) >= precedence(c) && c != '^') {
+                    output.append(stack.pop());
+                }
+                stack.push(c);
+            }
+        }
+        while (!stack.isEmpty()) {
+            output.append(stack.pop());
+        }
+        return output.toString();
+    }
+
+    private static int precedence(char operator) {
+        return operator == '^' ? 3 : operator == '*' || operator == '/' || operator == '%' ? 2 : 1;
+    }
+
+    public static void main(String[] args) {
+        String[] expressions = {
+            "1 + 2 * 3", "(1 + 2) * 3", "2 ^ 3 ^ 2", "sqrt(x * x + y * y)", "log(0)", "1 / (2 - 2)"
+        };
+        for (String expression : expressions) {
+            ExpressionParser parser = new ExpressionParser(expression);
+            parser.define("x", 3);
+            parser.define("y", 4);
+            try {
+                System.out.println(expression + " = " + parser.parse() + "\t" + toPostfix(expression));
+            } catch (ParseException ex) {
+                System.out.println(expression + ": " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package corpus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Generic collections, lambdas, method references and stream pipelines.
+ */
+public class Inventory<K extends Comparable<K>, V extends Inventory.Item<K>> {
+
+    private final Map<K, V> items = new HashMap<>();
+    private final List<Listener<? super V>> listeners = new ArrayList<>();
+    private int modifications;
+
+    public interface Item<K> {
+
+        K getKey();
+
+        long getQuantity();
+
+        default boolean isAvailable() {
+            return getQuantity() > 0;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener<T> {
+
+        void changed(T oldValue, T newValue);
+    }
+
+    public static final class Product implements Item<String> {
+
+        private final String key;
+        private final String name;
+        private final long quantity;
+        private final double price;
+
+        public Product(String key, String name, long quantity, double price) {
+            this.key = Objects.requireNonNull(key, "key");
+            this.name = name;
+            this.quantity = quantity;
+            this.price = price;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public Product withQuantity(long newQuantity) {
+            return new Product(key, name, newQuantity, price);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): %d x %.2f", name, key, quantity, price);
+        }
+    }
+
+    public void addListener(Listener<? super V> listener) {
+        listeners.add(listener);
+    }
+
+    public V put(V item) {
+        V previous = items.put(item.getKey(), item);
+        modifications++;
+        listeners.forEach(listener -> listener.changed(previous, item));
+        return previous;
+    }
+
+    public Optional<V> get(K key) {
+        return Optional.ofNullable(items.get(key));
+    }
+
+    public List<V> find(Predicate<? super V> filter, Comparator<? super V> order, int limit) {
+        return items.values().stream()
+                .filter(filter)
+                .sorted(order)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public <R> Map<R, List<K>> groupKeys(Function<? super V, ? extends R> classifier) {
+        return items.values().stream()
+                .collect(Collectors.groupingBy(classifier,
+                        Collectors.mapping(Item::getKey, Collectors.toList())));
+    }
+
+    public List<K> sortedKeys() {
+        List<K> keys = new ArrayList<>(items.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    public long totalQuantity() {
+        long total = 0;
+        for (V item : items.values()) {
+            if (item.isAvailable()) {
+                total += item.getQuantity();
+            }
+        }
+        return total;
+    }
+
+    public int getModifications() {
+        return modifications;
+    }
+
+    public static double totalValue(Inventory<String, Product> inventory) {
+        return inventory.find(Product::isAvailable, Comparator.comparing(Product::getName), Integer.MAX_VALUE)
+                .stream()
+                .mapToDouble(product -> product.getQuantity() * product.getPrice())
+                .sum();
+    }
+
+    public static void main(String[] args) {
+        Inventory<String, Product> inventory = new Inventory<>();
+        inventory.addListener((oldValue, newValue) -> {
+            if (oldValue != null && oldValue.getQuantity() != newValue.getQuantity()) {
+                System.out.println(oldValue.getName() + ": " + oldValue.getQuantity() + " -> "
+                        + newValue.getQuantity());
+            }
+        });
+        inventory.put(new Product("a-1", "Anvil", 3, 120.5));
+        inventory.put(new Product("b-2", "Bolt", 1200, 0.05));
+        inventory.put(new Product("c-3", "Chisel", 0, 14.9));
+        inventory.get("a-1").map(product -> product.withQuantity(product.getQuantity() - 1)).ifPresent(inventory::put);
+        Map<Boolean, List<String>> availability = inventory.groupKeys(Product::isAvailable);
+        System.out.println(availability.getOrDefault(true, Collections.emptyList()));
+        System.out.println(totalValue(inventory) > 100 ? "stocked" : "low");
+    }
+}
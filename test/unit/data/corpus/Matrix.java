@@ -0,0 +1,188 @@
+package corpus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Arrays and array initializers, annotations, static initializers, an enum with bodies, inner and anonymous classes.
+ */
+@Matrix.Immutable(since = "1.0")
+public final class Matrix implements Iterable<double[]> {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    public @interface Immutable {
+
+        String since();
+
+        String[] reasons() default {"thread safety", "caching"};
+    }
+
+    public static final Matrix IDENTITY_3 = new Matrix(new double[][]{
+        {1, 0, 0},
+        {0, 1, 0},
+        {0, 0, 1}
+    });
+    private static final double[][] ROTATIONS = new double[4][];
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71};
+    private final double[][] values;
+    private final int rows;
+    private final int columns;
+
+    static {
+        for (int quarter = 0; quarter < ROTATIONS.length; quarter++) {
+            double angle = quarter * Math.PI / 2;
+            ROTATIONS[quarter] = new double[]{Math.cos(angle), -Math.sin(angle), Math.sin(angle), Math.cos(angle)};
+        }
+    }
+
+    public enum Norm {
+        ONE {
+            @Override
+            double of(Matrix matrix) {
+                double max = 0;
+                for (int column = 0; column < matrix.columns; column++) {
+                    double sum = 0;
+                    for (int row = 0; row < matrix.rows; row++) {
+                        sum += Math.abs(matrix.values[row][column]);
+                    }
+                    max = Math.max(max, sum);
+                }
+                return max;
+            }
+        },
+        INFINITY {
+            @Override
+            double of(Matrix matrix) {
+                double max = 0;
+                for (double[] row : matrix.values) {
+                    double sum = 0;
+                    for (double value : row) {
+                        sum += Math.abs(value);
+                    }
+                    max = Math.max(max, sum);
+                }
+                return max;
+            }
+        },
+        FROBENIUS {
+            @Override
+            double of(Matrix matrix) {
+                double sum = 0;
+                for (double[] row : matrix.values) {
+                    for (double value : row) {
+                        sum += value * value;
+                    }
+                }
+                return Math.sqrt(sum);
+            }
+        };
+
+        abstract double of(Matrix matrix);
+    }
+
+    public Matrix(double[][] values) {
+        if (values.length == 0 || values[0].length == 0) {
+            throw new IllegalArgumentException("Empty matrix");
+        }
+        this.rows = values.length;
+        this.columns = values[0].length;
+        this.values = new double[rows][];
+        for (int row = 0; row < rows; row++) {
+            if (values[row].length != columns) {
+                throw new IllegalArgumentException("Row " + row + " has " + values[row].length + " columns");
+            }
+            this.values[row] = values[row].clone();
+        }
+    }
+
+    public double get(int row, int column) {
+        return values[row][column];
+    }
+
+    @Immutable(since = "1.1", reasons = {})
+    public Matrix multiply(Matrix other) {
+        if (columns != other.rows) {
+            throw new IllegalArgumentException(rows + "x" + columns + " * " + other.rows + "x" + other.columns);
+        }
+        double[][] product = new double[rows][other.columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < other.columns; j++) {
+                double sum = 0;
+                for (int k = 0; k < columns; k++) {
+                    sum += values[i][k] * other.values[k][j];
+                }
+                product[i][j] = sum;
+            }
+        }
+        return new Matrix(product);
+    }
+
+    public Matrix transpose() {
+        double[][] transposed = new double[columns][rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                transposed[column][row] = values[row][column];
+            }
+        }
+        return new Matrix(transposed);
+    }
+
+    public static Matrix rotation(int quarterTurns) {
+        double[] rotation = ROTATIONS[Math.floorMod(quarterTurns, ROTATIONS.length)];
+        return new Matrix(new double[][]{{rotation[0], rotation[1]}, {rotation[2], rotation[3]}});
+    }
+
+    public static Matrix diagonalOfPrimes(int size) {
+        double[][] diagonal = new double[size][size];
+        for (int i = 0; i < size && i < PRIMES.length; i++) {
+            diagonal[i][i] = PRIMES[i];
+        }
+        return new Matrix(diagonal);
+    }
+
+    @Override
+    public Iterator<double[]> iterator() {
+        return new Iterator<double[]>() {
+
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < rows;
+            }
+
+            @Override
+            public double[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return values[row++].clone();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Matrix && Arrays.deepEquals(values, ((Matrix) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (double[] row : this) {
+            builder.append(Arrays.toString(row)).append('\n');
+        }
+        return builder.toString();
+    }
+}
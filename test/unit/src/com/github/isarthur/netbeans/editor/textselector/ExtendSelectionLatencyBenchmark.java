@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+
+/**
+ * Measures the latency of the Extend Selection action as it is felt in the editor: from the press until the selection
+ * has been applied. Sources of growing length and nesting depth are generated by {@link JavaSourceGenerator} and the
+ * action is pressed twice at thousands of caret positions spread over each of them. The first pass leaves the
+ * document unchanged, so the parser result is reused. The second pass edits the document before every position, so
+ * each first press waits for a reparse. The percentiles of every phase are written, per length and depth of the
+ * source, pass and origin of the selected range, to {@code latency.csv} in the working directory of the test.
+ *
+ * @author Arthur Sadykov
+ */
+public class ExtendSelectionLatencyBenchmark extends SelectionTestCase {
+
+    private static final int[] LINES = {200, 2000, 20000};
+    private static final int[] DEPTHS = {1, 8, 32};
+    private static final int UNCHANGED_POSITIONS = 4000;
+    private static final int EDITED_POSITIONS = 200;
+    private static final int PRESSES_PER_POSITION = 2;
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    private static final String CSV_FILE = "latency.csv";
+    private TextSelector selector;
+    private PrintWriter csv;
+
+    public ExtendSelectionLatencyBenchmark(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(ExtendSelectionLatencyBenchmark.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        selector = new TextSelector();
+        File file = new File(getWorkDir(), CSV_FILE);
+        csv = new PrintWriter(file, StandardCharsets.UTF_8.name());
+        csv.println("lines,depth,pass,origin,presses,phase,p50_us,p95_us,p99_us");
+        getLog().println("Writing " + file);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        csv.close();
+        super.tearDown();
+    }
+
+    public void testLatency() throws BadLocationException, IOException {
+        for (int lines : LINES) {
+            for (int depth : DEPTHS) {
+                JavaSourceGenerator generator = new JavaSourceGenerator.Builder().lines(lines).depth(depth).build();
+                setText(generator.generate("Test"));
+                measure(lines + "," + depth);
+            }
+        }
+    }
+
+    private void measure(String source) throws BadLocationException {
+        measure(source, "unchanged", UNCHANGED_POSITIONS, false);
+        measure(source, "edited", EDITED_POSITIONS, true);
+    }
+
+    private void measure(String source, String pass, int positions, boolean edit) throws BadLocationException {
+        Map<SelectionTiming.Origin, List<SelectionTiming>> timings = new EnumMap<>(SelectionTiming.Origin.class);
+        int length = document.getLength();
+        int step = Math.max(1, length / positions);
+        for (int position = 0; position < length; position += step) {
+            if (edit) {
+                document.insertString(length, " ", null);
+                document.remove(length, 1);
+            }
+            editor.setCaretPosition(position);
+            for (int press = 0; press < PRESSES_PER_POSITION; press++) {
+                selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+                selector.waitFinished(editor);
+                SelectionTiming timing = selector.getLastTiming(editor);
+                if (timing != null) {
+                    timings.computeIfAbsent(timing.getOrigin(), origin -> new ArrayList<>()).add(timing);
+                }
+            }
+        }
+        for (Map.Entry<SelectionTiming.Origin, List<SelectionTiming>> entry : timings.entrySet()) {
+            List<SelectionTiming> originTimings = entry.getValue();
+            String prefix = source + ',' + pass + ',' + entry.getKey() + ',' + originTimings.size() + ',';
+            long[] wait = new long[originTimings.size()];
+            long[] compute = new long[wait.length];
+            long[] apply = new long[wait.length];
+            long[] total = new long[wait.length];
+            for (int i = 0; i < wait.length; i++) {
+                SelectionTiming timing = originTimings.get(i);
+                wait[i] = timing.getWaitTime();
+                compute[i] = timing.getComputeTime();
+                apply[i] = timing.getApplyTime();
+                total[i] = timing.getTotalTime();
+            }
+            writeRow(prefix + "wait", wait);
+            writeRow(prefix + "compute", compute);
+            writeRow(prefix + "apply", apply);
+            writeRow(prefix + "total", total);
+        }
+        csv.flush();
+    }
+
+    private void writeRow(String prefix, long[] times) {
+        Arrays.sort(times);
+        StringBuilder row = new StringBuilder(prefix);
+        for (double percentile : PERCENTILES) {
+            int index = Math.max(0, (int) Math.ceil(percentile * times.length) - 1);
+            row.append(',').append(String.format(Locale.ROOT, "%.1f", times[index] / 1000.0));
+        }
+        csv.println(row);
+        getLog().println(row);
+    }
+}
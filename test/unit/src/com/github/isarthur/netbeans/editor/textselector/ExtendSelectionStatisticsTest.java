@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.ExtendSelectionStatistics;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.ExtendSelectionStatisticsMXBean;
+import com.github.isarthur.netbeans.editor.textselector.diagnostics.LatencyHistogram;
+import java.awt.event.ActionEvent;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import junit.framework.Test;
+
+/**
+ * Checks that a press is counted by the platform MXBean.
+ *
+ * @author Arthur Sadykov
+ */
+public class ExtendSelectionStatisticsTest extends SelectionTestCase {
+
+    private TextSelector selector;
+    private ExtendSelectionStatisticsMXBean statistics;
+
+    public ExtendSelectionStatisticsTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(ExtendSelectionStatisticsTest.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        selector = new TextSelector();
+        statistics = getStatistics();
+        statistics.reset();
+    }
+
+    public void testPressIsCounted() throws Exception {
+        setText("public class Test { public void test() { s = i & k; } }");
+        editor.setCaretPosition(50);
+        actionPerformed();
+        SelectionTiming timing = selector.getLastTiming(editor);
+        assertNotNull(timing);
+        assertEquals(1, statistics.getInvocationCount());
+        Map<String, Long> countsByOrigin = statistics.getInvocationCountsByOrigin();
+        assertEquals(Long.valueOf(1), countsByOrigin.get(timing.getOrigin().name()));
+        Map<String, LatencyHistogram.Summary> latencyByStrategy = statistics.getLatencyByStrategy();
+        assertEquals(1, latencyByStrategy.size());
+        LatencyHistogram.Summary summary = latencyByStrategy.values().iterator().next();
+        assertEquals(1, summary.getCount());
+        assertTrue(summary.getP50Micros() > 0);
+        actionPerformed();
+        assertEquals(2, statistics.getInvocationCount());
+        statistics.reset();
+        assertEquals(0, statistics.getInvocationCount());
+        assertTrue(statistics.getLatencyByStrategy().isEmpty());
+    }
+
+    private static ExtendSelectionStatisticsMXBean getStatistics() throws MalformedObjectNameException {
+        ObjectName name = new ObjectName(ExtendSelectionStatistics.OBJECT_NAME);
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            new ExtendSelectionStatistics.Installer().run();
+        }
+        return JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name,
+                ExtendSelectionStatisticsMXBean.class);
+    }
+
+    private void actionPerformed() {
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        selector.waitFinished(editor);
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import java.util.Random;
+
+/**
+ * Generates compilable Java sources of a configurable size and shape for the scaling tests and benchmarks. The
+ * output depends only on the settings and the seed, so a measurement can be repeated on exactly the same input and
+ * plotted against the size of the source or the depth of its nesting.
+ * <p>
+ * A source is a top level class followed by static nested classes, each holding {@link Builder#members(int)}
+ * methods, until the source reaches {@link Builder#lines(int)} lines. Every class starts with an array initializer
+ * and the body of each method is one of the following shapes, chosen by the seeded random generator:
+ * <ul>
+ * <li>if, while, for, do, switch and synchronized blocks nested {@link Builder#depth(int)} levels deep,</li>
+ * <li>a chain of {@link Builder#chainLength(int)} method calls,</li>
+ * <li>a call with {@link Builder#arguments(int)} arguments,</li>
+ * <li>an if statement followed by {@link Builder#elseIfs(int)} else ifs,</li>
+ * <li>try/catch/finally statements nested {@link Builder#tryDepth(int)} levels deep,</li>
+ * <li>a string literal.</li>
+ * </ul>
+ *
+ * @author Arthur Sadykov
+ */
+public final class JavaSourceGenerator {
+
+    private static final int SHAPES = 6;
+    private final long seed;
+    private final int lines;
+    private final int members;
+    private final int depth;
+    private final int chainLength;
+    private final int arguments;
+    private final int arrayElements;
+    private final int elseIfs;
+    private final int tryDepth;
+    private StringBuilder source;
+    private Random random;
+    private int lineCount;
+    private int indentation;
+
+    private JavaSourceGenerator(Builder builder) {
+        seed = builder.seed;
+        lines = builder.lines;
+        members = builder.members;
+        depth = builder.depth;
+        chainLength = builder.chainLength;
+        arguments = builder.arguments;
+        arrayElements = builder.arrayElements;
+        elseIfs = builder.elseIfs;
+        tryDepth = builder.tryDepth;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Generates the source of a public class with the given name, which is also the name of its file.
+     */
+    public String generate(String className) {
+        source = new StringBuilder();
+        random = new Random(seed);
+        lineCount = 0;
+        indentation = 0;
+        line("package corpus;");
+        line("");
+        line("import java.util.ArrayList;");
+        line("import java.util.List;");
+        line("");
+        line("public class " + className + " {");
+        indentation++;
+        line("");
+        line("static int sum(int... values) {");
+        line("    int result = 0;");
+        line("    for (int value : values) {");
+        line("        result += value;");
+        line("    }");
+        line("    return result;");
+        line("}");
+        appendClassBody(0);
+        for (int nestedClass = 1; lineCount < lines; nestedClass++) {
+            line("");
+            line("static class Nested" + nestedClass + " {");
+            indentation++;
+            appendClassBody(nestedClass);
+            indentation--;
+            line("}");
+        }
+        indentation--;
+        line("}");
+        return source.toString();
+    }
+
+    private void appendClassBody(int classIndex) {
+        line("");
+        line("private final List<String> values = new ArrayList<>();");
+        StringBuilder table = new StringBuilder("private static final int[] TABLE = {");
+        for (int i = 0; i < arrayElements; i++) {
+            if (i > 0) {
+                table.append(i % 16 == 0 ? ",\n" + indent(indentation + 2) : ", ");
+            }
+            table.append(random.nextInt(1000));
+        }
+        line(table.append("};").toString());
+        lineCount += arrayElements / 16;
+        for (int member = 0; member < members && (classIndex == 0 || lineCount < lines); member++) {
+            line("");
+            line("int method" + member + "(int value) {");
+            indentation++;
+            line("int result = value;");
+            switch (random.nextInt(SHAPES)) {
+                case 0:
+                    appendNestedBlocks(0);
+                    break;
+                case 1:
+                    appendChainedCalls();
+                    break;
+                case 2:
+                    appendLongArgumentList();
+                    break;
+                case 3:
+                    appendElseIfLadder();
+                    break;
+                case 4:
+                    appendTryStatements(0);
+                    break;
+                default:
+                    line("values.add(\"value \" + result + \" of method" + member + "\");");
+                    break;
+            }
+            line("return result;");
+            indentation--;
+            line("}");
+        }
+    }
+
+    private void appendNestedBlocks(int level) {
+        if (level == depth) {
+            line("result += value * " + random.nextInt(100) + ";");
+            return;
+        }
+        String variable = "i" + level;
+        switch (random.nextInt(6)) {
+            case 0:
+                line("if (result > " + random.nextInt(100) + ") {");
+                break;
+            case 1:
+                line("while (result < " + random.nextInt(100) + ") {");
+                break;
+            case 2:
+                line("for (int " + variable + " = 0; " + variable + " < " + random.nextInt(100) + "; " + variable
+                        + "++) {");
+                break;
+            case 3:
+                line("synchronized (this) {");
+                break;
+            case 4:
+                line("switch (result) {");
+                line("case " + random.nextInt(100) + ":");
+                indentation++;
+                appendNestedBlocks(level + 1);
+                line("break;");
+                indentation--;
+                line("default:");
+                line("    result--;");
+                line("}");
+                return;
+            default:
+                line("do {");
+                indentation++;
+                appendNestedBlocks(level + 1);
+                indentation--;
+                line("} while (result < " + random.nextInt(100) + ");");
+                return;
+        }
+        indentation++;
+        appendNestedBlocks(level + 1);
+        indentation--;
+        line("}");
+    }
+
+    private void appendChainedCalls() {
+        StringBuilder chain = new StringBuilder("result += new StringBuilder()");
+        for (int i = 0; i < chainLength; i++) {
+            chain.append(".append(").append(random.nextBoolean() ? "result" : "value").append(')');
+        }
+        line(chain.append(".toString().length();").toString());
+    }
+
+    private void appendLongArgumentList() {
+        StringBuilder call = new StringBuilder("result += sum(result");
+        for (int i = 1; i < arguments; i++) {
+            call.append(", ").append(random.nextBoolean() ? "value" : String.valueOf(random.nextInt(1000)));
+        }
+        line(call.append(");").toString());
+    }
+
+    private void appendElseIfLadder() {
+        line("if (result == 0) {");
+        line("    result = " + random.nextInt(1000) + ";");
+        for (int i = 1; i <= elseIfs; i++) {
+            line("} else if (result == " + i + ") {");
+            line("    result = " + random.nextInt(1000) + ";");
+        }
+        line("} else {");
+        line("    result = -1;");
+        line("}");
+    }
+
+    private void appendTryStatements(int level) {
+        if (level == tryDepth) {
+            line("result = Integer.parseInt(String.valueOf(result)) + TABLE.length;");
+            return;
+        }
+        line("try {");
+        indentation++;
+        appendTryStatements(level + 1);
+        indentation--;
+        line("} catch (RuntimeException ex" + level + ") {");
+        line("    result -= " + (level + 1) + ";");
+        line("} finally {");
+        line("    result += " + (level + 1) + ";");
+        line("}");
+    }
+
+    private void line(String text) {
+        if (!text.isEmpty()) {
+            source.append(indent(indentation));
+        }
+        source.append(text).append('\n');
+        lineCount++;
+    }
+
+    private static String indent(int level) {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < level; i++) {
+            indent.append("    ");
+        }
+        return indent.toString();
+    }
+
+    public static class Builder {
+
+        private long seed = 1;
+        private int lines = 1000;
+        private int members = 20;
+        private int depth = 3;
+        private int chainLength = 5;
+        private int arguments = 5;
+        private int arrayElements = 16;
+        private int elseIfs = 5;
+        private int tryDepth = 2;
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the minimal length of the source, which is reached by adding nested classes.
+         */
+        public Builder lines(int lines) {
+            this.lines = lines;
+            return this;
+        }
+
+        /**
+         * Sets the number of methods of each class.
+         */
+        public Builder members(int members) {
+            this.members = members;
+            return this;
+        }
+
+        /**
+         * Sets the number of nested blocks in the methods made of nested blocks.
+         */
+        public Builder depth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        public Builder chainLength(int chainLength) {
+            this.chainLength = chainLength;
+            return this;
+        }
+
+        public Builder arguments(int arguments) {
+            this.arguments = arguments;
+            return this;
+        }
+
+        /**
+         * Sets the number of elements of the array initializer of each class.
+         */
+        public Builder arrayElements(int arrayElements) {
+            this.arrayElements = arrayElements;
+            return this;
+        }
+
+        public Builder elseIfs(int elseIfs) {
+            this.elseIfs = elseIfs;
+            return this;
+        }
+
+        public Builder tryDepth(int tryDepth) {
+            this.tryDepth = tryDepth;
+            return this;
+        }
+
+        public JavaSourceGenerator build() {
+            return new JavaSourceGenerator(this);
+        }
+    }
+}
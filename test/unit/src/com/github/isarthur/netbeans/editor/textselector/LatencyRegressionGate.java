@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * Fails when the p95 latency or the allocation of an extend selection step over a fixed corpus gets worse than the
+ * baseline stored in {@value #BASELINE_FILE} of the data directory by more than the tolerance. The corpus consists of
+ * the sources written for the gate in the {@code corpus} data directory and of sources generated with fixed settings.
+ * <p>
+ * Run with {@code ant latency-gate}. Every source of the corpus must have both baselines, a missing one fails the
+ * gate. The allocation depends only on the JDK, the p95 latency also depends on the machine, so the baseline should
+ * be recorded on the machine the gate runs on. The tolerances are set by the {@value #LATENCY_TOLERANCE_PROPERTY} and
+ * {@value #ALLOCATION_TOLERANCE_PROPERTY} system properties, as fractions of the baseline.
+ * {@code ant latency-baseline} records a new baseline and keeps the comments at the top of the file.
+ *
+ * @author Arthur Sadykov
+ */
+public class LatencyRegressionGate extends SelectionTestCase {
+
+    private static final String BASELINE_FILE = "latency-baseline.properties";
+    private static final String CORPUS_DIRECTORY = "corpus";
+    private static final String UPDATE_BASELINE_PROPERTY = "textselector.updateBaseline";
+    private static final String LATENCY_TOLERANCE_PROPERTY = "textselector.latencyTolerance";
+    private static final String ALLOCATION_TOLERANCE_PROPERTY = "textselector.allocationTolerance";
+    private static final double DEFAULT_LATENCY_TOLERANCE = 0.25;
+    private static final double DEFAULT_ALLOCATION_TOLERANCE = 0.10;
+    private static final String P95_SUFFIX = ".p95.ns";
+    private static final String BYTES_SUFFIX = ".bytes";
+    private static final int MAX_POSITIONS = 2000;
+    private static final int RUNS = 3;
+
+    public LatencyRegressionGate(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(LatencyRegressionGate.class);
+    }
+
+    public void testLatencyAndAllocationDoNotRegress() throws BadLocationException, IOException {
+        File baselineFile = new File(getDataDir(), BASELINE_FILE);
+        Properties baseline = new Properties();
+        if (baselineFile.isFile()) {
+            try (InputStream in = Files.newInputStream(baselineFile.toPath())) {
+                baseline.load(in);
+            }
+        }
+        double latencyTolerance = getTolerance(LATENCY_TOLERANCE_PROPERTY, DEFAULT_LATENCY_TOLERANCE);
+        double allocationTolerance = getTolerance(ALLOCATION_TOLERANCE_PROPERTY, DEFAULT_ALLOCATION_TOLERANCE);
+        Properties measured = new Properties();
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, String> source : createCorpus().entrySet()) {
+            String name = source.getKey();
+            long[] result = measure(source.getValue());
+            measured.setProperty(name + P95_SUFFIX, Long.toString(result[0]));
+            measured.setProperty(name + BYTES_SUFFIX, Long.toString(result[1]));
+            check(regressions, name + P95_SUFFIX, result[0], baseline, latencyTolerance);
+            check(regressions, name + BYTES_SUFFIX, result[1], baseline, allocationTolerance);
+        }
+        if (Boolean.getBoolean(UPDATE_BASELINE_PROPERTY)) {
+            writeBaseline(baselineFile, measured);
+            getLog().println("Baseline written to " + baselineFile);
+            return;
+        }
+        assertTrue(String.join("\n", regressions), regressions.isEmpty());
+    }
+
+    private Map<String, String> createCorpus() throws IOException {
+        Map<String, String> corpus = new LinkedHashMap<>();
+        File[] files = new File(getDataDir(), CORPUS_DIRECTORY).listFiles((dir, name) -> name.endsWith(".java"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                corpus.put(file.getName(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            }
+        }
+        corpus.put("generated-small", new JavaSourceGenerator.Builder().lines(500).depth(3).build().generate("Test"));
+        corpus.put("generated-large",
+                new JavaSourceGenerator.Builder().lines(20000).depth(8).build().generate("Test"));
+        corpus.put("generated-deep", new JavaSourceGenerator.Builder().lines(2000).depth(32).tryDepth(8).elseIfs(40)
+                .build().generate("Test"));
+        return corpus;
+    }
+
+    /**
+     * @return the lowest p95 latency in nanoseconds and the lowest mean number of bytes allocated per step of
+     * {@value #RUNS} runs over the sampled token offsets of the source
+     */
+    private long[] measure(String text) throws BadLocationException, IOException {
+        setText(text);
+        long[] result = {Long.MAX_VALUE, Long.MAX_VALUE};
+        runWhenParsed(controller -> {
+            int[] offsets = sampleOffsets(controller.getTokenHierarchy().tokenSequence());
+            long[] times = new long[offsets.length];
+            run(controller, offsets, times);
+            for (int i = 0; i < RUNS; i++) {
+                long allocatedBytes = getAllocatedBytes();
+                run(controller, offsets, times);
+                long bytesPerStep = (getAllocatedBytes() - allocatedBytes) / offsets.length;
+                Arrays.sort(times);
+                long p95 = times[Math.max(0, (int) Math.ceil(0.95 * times.length) - 1)];
+                result[0] = Math.min(result[0], p95);
+                result[1] = Math.min(result[1], bytesPerStep);
+            }
+        });
+        return result;
+    }
+
+    private static void run(CompilationController controller, int[] offsets, long[] times) {
+        for (int i = 0; i < offsets.length; i++) {
+            int offset = offsets[i];
+            long startTime = System.nanoTime();
+            Direction direction =
+                    SelectionEngine.resolveDirection(controller.getTokenHierarchy().tokenSequence(), offset);
+            SelectionEngine.selectNext(controller, offset, offset, offset, direction);
+            times[i] = System.nanoTime() - startTime;
+        }
+    }
+
+    private static int[] sampleOffsets(TokenSequence<?> tokenSequence) {
+        List<Integer> offsets = new ArrayList<>();
+        tokenSequence.moveStart();
+        while (tokenSequence.moveNext()) {
+            offsets.add(tokenSequence.offset());
+        }
+        int step = Math.max(1, offsets.size() / MAX_POSITIONS);
+        int[] sample = new int[(offsets.size() + step - 1) / step];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = offsets.get(i * step);
+        }
+        return sample;
+    }
+
+    /**
+     * Writes the measured values sorted by key below the comment lines at the top of the current baseline file, so
+     * the explanation of the file survives a new baseline, unlike with {@link Properties#store}.
+     */
+    private static void writeBaseline(File baselineFile, Properties measured) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (baselineFile.isFile()) {
+            for (String line : Files.readAllLines(baselineFile.toPath(), StandardCharsets.ISO_8859_1)) {
+                if (!line.startsWith("#")) {
+                    break;
+                }
+                lines.add(line);
+            }
+        }
+        if (!lines.isEmpty()) {
+            lines.add("");
+        }
+        for (String key : new TreeSet<>(measured.stringPropertyNames())) {
+            lines.add(key + "=" + measured.getProperty(key));
+        }
+        Files.write(baselineFile.toPath(), lines, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reports the measured value and adds a regression when it exceeds the baseline by more than the tolerance or
+     * when it has no baseline.
+     */
+    private void check(List<String> regressions, String key, long value, Properties baseline, double tolerance) {
+        String baselineValue = baseline.getProperty(key);
+        if (baselineValue == null) {
+            getLog().println(key + " = " + value + " (no baseline)");
+            regressions.add(key + ": no baseline, record one with ant latency-baseline");
+            return;
+        }
+        long limit = (long) (Long.parseLong(baselineValue) * (1 + tolerance));
+        getLog().println(key + " = " + value + " (baseline " + baselineValue + ", limit " + limit + ")");
+        if (value > limit) {
+            regressions.add(String.format(Locale.ROOT, "%s: %d exceeds the baseline %s by more than %.0f%%",
+                    key, value, baselineValue, tolerance * 100));
+        }
+    }
+
+    private static double getTolerance(String property, double defaultTolerance) {
+        String value = System.getProperty(property);
+        return value != null ? Double.parseDouble(value) : defaultTolerance;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.selection.EnclosingNodeSelection;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * Places the caret in front of every token of each source of a corpus and extends the selection from there until it
+ * stops growing. Reports one throughput number per source, in offsets per second, the mean number of levels of the
+ * ladders and the slowest offset, and lists the offsets where the first step selected nothing or fell back to
+ * {@link EnclosingNodeSelection}. The corpus is generated by {@link JavaSourceGenerator}; the {@code .java} files
+ * of the directory named by the {@value #CORPUS_PROPERTY} system property are swept as well.
+ *
+ * @author Arthur Sadykov
+ */
+public class OffsetSweepBenchmark extends SelectionTestCase {
+
+    private static final String CORPUS_PROPERTY = "textselector.corpus";
+    private static final int MAX_LEVELS = 64;
+    private static final int MAX_REPORTED_OFFSETS = 20;
+
+    public OffsetSweepBenchmark(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(OffsetSweepBenchmark.class);
+    }
+
+    public void testGeneratedCorpus() throws BadLocationException, IOException {
+        sweep("generated shallow", new JavaSourceGenerator.Builder().lines(2000).depth(2).build().generate("Test"));
+        sweep("generated deep", new JavaSourceGenerator.Builder().seed(2).lines(2000).depth(24).tryDepth(8)
+                .elseIfs(40).chainLength(40).arguments(60).arrayElements(2000).build().generate("Test"));
+    }
+
+    public void testCorpusDirectory() throws BadLocationException, IOException {
+        String directory = System.getProperty(CORPUS_PROPERTY);
+        if (directory == null) {
+            return;
+        }
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".java"));
+        assertNotNull("Not a directory: " + directory, files);
+        Arrays.sort(files);
+        for (File file : files) {
+            sweep(file.getName(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void sweep(String source, String text) throws BadLocationException, IOException {
+        setText(text);
+        runWhenParsed(controller -> {
+            Sweep sweep = new Sweep();
+            TokenSequence<?> tokenSequence = controller.getTokenHierarchy().tokenSequence();
+            List<Integer> offsets = new ArrayList<>();
+            tokenSequence.moveStart();
+            while (tokenSequence.moveNext()) {
+                offsets.add(tokenSequence.offset());
+            }
+            offsets.add(text.length());
+            long startTime = System.nanoTime();
+            for (int offset : offsets) {
+                sweep.sweep(controller, offset);
+            }
+            long time = System.nanoTime() - startTime;
+            report(String.format(Locale.ROOT,
+                    "%-20s %8d offsets %12.1f offsets/s %6.2f levels, slowest %8.1f us at %d, %d not growing, "
+                    + "%d fallback",
+                    source, offsets.size(), offsets.size() * 1e9 / time, (double) sweep.levels / offsets.size(),
+                    sweep.slowestTime / 1000.0, sweep.slowestOffset, sweep.notGrowing.size(),
+                    sweep.fallback.size()));
+            reportOffsets(text, "not growing", sweep.notGrowing);
+            reportOffsets(text, "fallback", sweep.fallback);
+        });
+    }
+
+    private void reportOffsets(String text, String kind, List<Integer> offsets) {
+        for (int i = 0; i < offsets.size() && i < MAX_REPORTED_OFFSETS; i++) {
+            int offset = offsets.get(i);
+            int lineStart = text.lastIndexOf('\n', offset - 1) + 1;
+            int lineEnd = text.indexOf('\n', offset);
+            String line = text.substring(lineStart, lineEnd >= 0 ? lineEnd : text.length());
+            report("    " + kind + " at " + offset + ": " + line.substring(0, offset - lineStart).trim() + " | "
+                    + line.substring(offset - lineStart).trim());
+        }
+    }
+
+    private void report(String line) {
+        getLog().println(line);
+    }
+
+    private static final class Sweep {
+
+        private final List<Integer> notGrowing = new ArrayList<>();
+        private final List<Integer> fallback = new ArrayList<>();
+        private long levels;
+        private long slowestTime;
+        private int slowestOffset;
+
+        void sweep(CompilationController controller, int offset) {
+            long startTime = System.nanoTime();
+            Direction direction = SelectionEngine.resolveDirection(controller.getTokenHierarchy().tokenSequence(),
+                    offset);
+            int start = offset;
+            int end = offset;
+            int dot = offset;
+            for (int level = 0; level < MAX_LEVELS; level++) {
+                if (level == 0 && SelectionFactory.findStrategy(SelectionEngine.getTokenId(
+                        controller.getTokenHierarchy().tokenSequence(), dot, direction))
+                        instanceof EnclosingNodeSelection) {
+                    fallback.add(offset);
+                }
+                SelectionRange range = SelectionEngine.selectNext(controller, start, end, dot, direction);
+                if (range == null || range.isEmpty()
+                        || (range.getStart() >= start && range.getEnd() <= end && start != end)) {
+                    if (level == 0) {
+                        notGrowing.add(offset);
+                    }
+                    break;
+                }
+                levels++;
+                start = range.getStart();
+                end = range.getEnd();
+                dot = range.getDot();
+                direction = range.getDirection();
+            }
+            long time = System.nanoTime() - startTime;
+            if (time > slowestTime) {
+                slowestTime = time;
+                slowestOffset = offset;
+            }
+        }
+    }
+}
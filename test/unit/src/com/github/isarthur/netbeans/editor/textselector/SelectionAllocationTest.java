@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.api.java.source.CompilationController;
+
+/**
+ * Keeps a repeated extend selection step close to allocation free. Once the span index of the parser result has
+ * been built, a step allocates its context, the selected range and the token sequences it walks, nothing that
+ * depends on the size of the source. Each test fails when the average number of bytes allocated by a step of a token
+ * category exceeds {@value #BYTES_PER_STEP_BUDGET}.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionAllocationTest extends SelectionTestCase {
+
+    private static final int BYTES_PER_STEP_BUDGET = 512;
+    private static final int WARMUP_ITERATIONS = 1000;
+    private static final int MEASURED_ITERATIONS = 5000;
+    private static final String SOURCE =
+            "public class Test {\n"
+            + "\n"
+            + "    private static final int LIMIT = 10;\n"
+            + "\n"
+            + "    int run(int value, boolean flag) {\n"
+            + "        if (value > LIMIT) { value = compute(value, 1); }\n"
+            + "        try { value = 0; } catch (RuntimeException ex) { value = 1; }\n"
+            + "        while (flag) { value++; }\n"
+            + "        String text = \"literal text\";\n"
+            + "        return value + text.length();\n"
+            + "    }\n"
+            + "\n"
+            + "    int compute(int a, int b) {\n"
+            + "        return a + b;\n"
+            + "    }\n"
+            + "}\n";
+
+    public SelectionAllocationTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SelectionAllocationTest.class);
+    }
+
+    /**
+     * Skips the tests on a JVM that cannot measure the memory allocated by a thread.
+     */
+    @Override
+    public boolean canRun() {
+        return super.canRun() && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .isThreadAllocatedMemorySupported();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setText(SOURCE);
+    }
+
+    public void testIdentifierStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("compute(value") + 7, Direction.BACKWARD);
+    }
+
+    public void testBlockStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("{ value = compute") + 1, Direction.BACKWARD);
+    }
+
+    public void testEnclosedExpressionStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("compute(value") + 8, Direction.BACKWARD);
+    }
+
+    public void testExpressionStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("> LIMIT") + 1, Direction.BACKWARD);
+    }
+
+    public void testSemicolonStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("value = 0;") + 10, Direction.BACKWARD);
+    }
+
+    public void testLiteralStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("literal text") + 3, Direction.FORWARD);
+    }
+
+    public void testModifierStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("private") + 7, Direction.BACKWARD);
+    }
+
+    public void testIfStatementStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("if (value") + 2, Direction.BACKWARD);
+    }
+
+    public void testTryStatementStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("try {") + 3, Direction.BACKWARD);
+    }
+
+    public void testBlockStatementStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("while") + 5, Direction.BACKWARD);
+    }
+
+    public void testStatementStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("return value") + 6, Direction.BACKWARD);
+    }
+
+    public void testSeparatorStepAllocation() throws IOException {
+        assertAllocation(SOURCE.indexOf("value, 1") + 7, Direction.BACKWARD);
+    }
+
+    private void assertAllocation(int caretPosition, Direction direction) throws IOException {
+        runWhenParsed(controller -> {
+            assertNotNull(selectNext(controller, caretPosition, direction));
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                selectNext(controller, caretPosition, direction);
+            }
+            long allocatedBytes = getAllocatedBytes();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                selectNext(controller, caretPosition, direction);
+            }
+            long bytesPerStep = (getAllocatedBytes() - allocatedBytes) / MEASURED_ITERATIONS;
+            assertTrue(getName() + ": " + bytesPerStep + " bytes per step, the budget is " + BYTES_PER_STEP_BUDGET,
+                    bytesPerStep <= BYTES_PER_STEP_BUDGET);
+        });
+    }
+
+    private static SelectionRange selectNext(CompilationController controller, int caretPosition, Direction direction) {
+        return SelectionEngine.selectNext(controller, caretPosition, caretPosition, caretPosition, direction);
+    }
+}
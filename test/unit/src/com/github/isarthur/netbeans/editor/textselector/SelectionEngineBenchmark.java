@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.selection.BlockSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.EnclosedExpressionSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.IdentifierSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.IfStmtSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.LiteralSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.SeparatorTokenSelection;
+import com.github.isarthur.netbeans.editor.textselector.selection.TryStmtSelection;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.io.IOException;
+import java.util.Locale;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * Measures a single extend selection step of every built-in strategy on small, medium and very large sources, with
+ * the selected code nested shallowly and deeply. Reports the time and the bytes allocated per step, the allocation
+ * rate follows from both. Run with {@code ant benchmark}, the results are written only to the log of the test.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionEngineBenchmark extends SelectionTestCase {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 10000;
+    private static final int SMALL_SIZE = 10;
+    private static final int MEDIUM_SIZE = 500;
+    private static final int LARGE_SIZE = 10000;
+    private static final int SHALLOW_DEPTH = 1;
+    private static final int DEEP_DEPTH = 40;
+    private static final int SEPARATOR_RUN_LENGTH = 120;
+
+    public SelectionEngineBenchmark(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SelectionEngineBenchmark.class);
+    }
+
+    public void testSmallSource() throws BadLocationException, IOException {
+        benchmark("small", SMALL_SIZE, SHALLOW_DEPTH);
+        benchmark("small", SMALL_SIZE, DEEP_DEPTH);
+    }
+
+    public void testMediumSource() throws BadLocationException, IOException {
+        benchmark("medium", MEDIUM_SIZE, SHALLOW_DEPTH);
+        benchmark("medium", MEDIUM_SIZE, DEEP_DEPTH);
+    }
+
+    public void testLargeSource() throws BadLocationException, IOException {
+        benchmark("large", LARGE_SIZE, SHALLOW_DEPTH);
+        benchmark("large", LARGE_SIZE, DEEP_DEPTH);
+    }
+
+    /**
+     * A run of separators is skipped token by token before the token following it is selected.
+     */
+    public void testSeparatorRun() throws BadLocationException, IOException {
+        StringBuilder source = new StringBuilder("public class Test {\n    int[] run = {0");
+        for (int i = 0; i < SEPARATOR_RUN_LENGTH; i++) {
+            source.append(" ,");
+        }
+        source.append(" 1};\n}\n");
+        String text = source.toString();
+        setText(text);
+        runWhenParsed(controller -> measure(controller, "separator run", "-", new Case(
+                "separator run", SeparatorTokenSelection.class, text.lastIndexOf(" 1};"), Direction.BACKWARD)));
+    }
+
+    private void benchmark(String size, int members, int depth) throws BadLocationException, IOException {
+        String text = createSource(members, depth);
+        setText(text);
+        String nesting = depth == SHALLOW_DEPTH ? "shallow" : "deep";
+        Case[] cases = {
+            new Case("identifier", IdentifierSelection.class, text.indexOf("compute(value") + 7, Direction.BACKWARD),
+            new Case("block", BlockSelection.class, text.indexOf("{ value = compute") + 1, Direction.BACKWARD),
+            new Case("enclosed expression", EnclosedExpressionSelection.class, text.indexOf("compute(value") + 8,
+                    Direction.BACKWARD),
+            new Case("if statement", IfStmtSelection.class, text.indexOf("if (value") + 2, Direction.BACKWARD),
+            new Case("try statement", TryStmtSelection.class, text.indexOf("try {") + 3, Direction.BACKWARD),
+            new Case("literal", LiteralSelection.class, text.indexOf("literal text") + 3, Direction.FORWARD),
+            new Case("separator", SeparatorTokenSelection.class, text.indexOf("value, 1") + 7, Direction.BACKWARD)
+        };
+        runWhenParsed(controller -> {
+            for (Case benchmarkCase : cases) {
+                measure(controller, size, nesting, benchmarkCase);
+            }
+        });
+    }
+
+    private void measure(CompilationController controller, String size, String nesting, Case benchmarkCase) {
+        TokenSequence<?> tokenSequence = controller.getTokenHierarchy().tokenSequence();
+        tokenSequence.move(benchmarkCase.caretPosition);
+        assertTrue(benchmarkCase.direction == Direction.BACKWARD
+                ? tokenSequence.movePrevious()
+                : tokenSequence.moveNext());
+        SelectionStrategy strategy = SelectionFactory.getStrategy(tokenSequence);
+        assertEquals(benchmarkCase.name, benchmarkCase.strategyClass, strategy.getClass());
+        assertNotNull(benchmarkCase.name, selectNext(controller, benchmarkCase));
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            selectNext(controller, benchmarkCase);
+        }
+        long allocatedBytes = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            selectNext(controller, benchmarkCase);
+        }
+        double nanosPerStep = (double) (System.nanoTime() - startTime) / MEASURED_ITERATIONS;
+        double bytesPerStep = (double) (getAllocatedBytes() - allocatedBytes) / MEASURED_ITERATIONS;
+        String result = String.format(Locale.ROOT, "%-13s %-8s %-20s %10.1f ns/op %10.1f B/op %10.1f MB/s",
+                size, nesting, benchmarkCase.name, nanosPerStep, bytesPerStep,
+                bytesPerStep / nanosPerStep * 1e9 / (1024 * 1024));
+        getLog().println(result);
+    }
+
+    private static SelectionRange selectNext(CompilationController controller, Case benchmarkCase) {
+        int caretPosition = benchmarkCase.caretPosition;
+        return SelectionEngine.selectNext(
+                controller, caretPosition, caretPosition, caretPosition, benchmarkCase.direction);
+    }
+
+    /**
+     * Places the method containing the measured code in the middle of the given number of members, nested in the
+     * given number of blocks.
+     */
+    private static String createSource(int members, int depth) {
+        StringBuilder source = new StringBuilder("public class Test {\n\n");
+        source.append("    int compute(int a, int b) {\n        return a + b;\n    }\n");
+        appendMembers(source, 0, members / 2);
+        source.append("    int target(int value, boolean flag) {\n");
+        for (int level = 0; level < depth; level++) {
+            indent(source, level).append("if (flag) {\n");
+        }
+        indent(source, depth).append("if (value > 0) { value = compute(value, 1); }\n");
+        indent(source, depth).append("try { value = 0; } catch (RuntimeException ex) { value = 1; }\n");
+        indent(source, depth).append("String text = \"literal text\";\n");
+        for (int level = depth - 1; level >= 0; level--) {
+            indent(source, level).append("}\n");
+        }
+        source.append("        return value;\n    }\n");
+        appendMembers(source, members / 2, members);
+        return source.append("}\n").toString();
+    }
+
+    private static void appendMembers(StringBuilder source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            source.append("    int field").append(i).append(" = ").append(i).append(";\n\n")
+                    .append("    int method").append(i).append("(int a, int b) {\n")
+                    .append("        return compute(a, b) + field").append(i).append(";\n")
+                    .append("    }\n\n");
+        }
+    }
+
+    private static StringBuilder indent(StringBuilder source, int level) {
+        for (int i = 0; i < level + 2; i++) {
+            source.append("    ");
+        }
+        return source;
+    }
+
+    private static final class Case {
+
+        private final String name;
+        private final Class<? extends SelectionStrategy> strategyClass;
+        private final int caretPosition;
+        private final Direction direction;
+
+        Case(String name, Class<? extends SelectionStrategy> strategyClass, int caretPosition,
+                Direction direction) {
+            this.name = name;
+            this.strategyClass = strategyClass;
+            this.caretPosition = caretPosition;
+            this.direction = direction;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Test;
+
+/**
+ * Records the Flight Recorder events of a press in process and checks their fields.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionEventsTest extends SelectionTestCase {
+
+    private static final String EXTEND_SELECTION_EVENT = "com.github.isarthur.textselector.ExtendSelection";
+    private static final String SELECTION_STEP_EVENT = "com.github.isarthur.textselector.SelectionStep";
+    private TextSelector selector;
+
+    public SelectionEventsTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SelectionEventsTest.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        selector = new TextSelector();
+    }
+
+    public void testPressEmitsExtendSelectionEvent() throws Exception {
+        setText("public class Test { public void test() { s = i & k; } }");
+        editor.setCaretPosition(50);
+        List<RecordedEvent> events = record(EXTEND_SELECTION_EVENT);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        SelectionTiming timing = selector.getLastTiming(editor);
+        assertEquals(timing.getOrigin().name(), event.getString("origin"));
+        assertEquals(0, event.getInt("selectionSizeBefore"));
+        assertEquals(editor.getSelectionEnd() - editor.getSelectionStart(), event.getInt("selectionSizeAfter"));
+        assertEquals(timing.getWaitTime(), event.getLong("waitTime"));
+        assertEquals(timing.getComputeTime(), event.getLong("computeTime"));
+        assertEquals(timing.getApplyTime(), event.getLong("applyTime"));
+        assertTrue(event.getDuration().toNanos() >= timing.getComputeTime() + timing.getApplyTime());
+    }
+
+    public void testPressEmitsSelectionStepEvents() throws Exception {
+        setText("public class Test { public void test() { s = i & k; } }");
+        editor.setCaretPosition(50);
+        List<RecordedEvent> events = record(SELECTION_STEP_EVENT);
+        assertFalse(events.isEmpty());
+        RecordedEvent first = events.get(0);
+        assertNotNull(first.getClass("strategy"));
+        assertEquals(0, first.getInt("selectionSizeBefore"));
+        assertEquals(editor.getSelectionEnd() - editor.getSelectionStart(), first.getInt("selectionSizeAfter"));
+    }
+
+    private List<RecordedEvent> record(String eventName) throws IOException {
+        Path file = getWorkDir().toPath().resolve(getName() + ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            actionPerformed();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private void actionPerformed() {
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        selector.waitFinished(editor);
+    }
+}
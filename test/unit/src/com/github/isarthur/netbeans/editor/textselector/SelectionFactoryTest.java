@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.selection.ModifierSelection;
+import com.github.isarthur.netbeans.editor.textselector.spi.Direction;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionContext;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionRange;
+import com.github.isarthur.netbeans.editor.textselector.spi.SelectionStrategy;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.lexer.TokenSequence;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Registers a strategy in the MIME lookup of Java sources and checks that it takes precedence over the built-in one,
+ * on the lexical path as well, and that the table follows the registrations.
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionFactoryTest extends SelectionTestCase {
+
+    private static final String SOURCE = "class A { public int x; }";
+    private static final String JAVA_MIME_FOLDER = "Editors/text/x-java";
+    private static final long REGISTRATION_TIMEOUT = 10000;
+    private TextSelector selector;
+
+    public SelectionFactoryTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SelectionFactoryTest.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        selector = new TextSelector();
+    }
+
+    public void testRegisteredStrategyOverridesBuiltinStrategy() throws BadLocationException, IOException,
+            InterruptedException {
+        setText(SOURCE);
+        assertTrue(SelectionFactory.findStrategy(JavaTokenId.PUBLIC) instanceof ModifierSelection);
+        editor.setCaretPosition(10);
+        actionPerformed();
+        assertEquals("public", editor.getSelectedText());
+        assertEquals(SelectionTiming.Origin.TOKENS, selector.getLastTiming(editor).getOrigin());
+        FileObject registration = register(PublicToStartStrategy.class);
+        try {
+            waitForStrategy(PublicToStartStrategy.class);
+            setText(SOURCE);
+            editor.setCaretPosition(10);
+            actionPerformed();
+            assertEquals("class A { public", editor.getSelectedText());
+            assertEquals(SelectionTiming.Origin.PARSER, selector.getLastTiming(editor).getOrigin());
+        } finally {
+            registration.delete();
+        }
+        waitForStrategy(ModifierSelection.class);
+        setText(SOURCE);
+        editor.setCaretPosition(10);
+        actionPerformed();
+        assertEquals("public", editor.getSelectedText());
+    }
+
+    private static FileObject register(Class<? extends SelectionStrategy> strategyClass) throws IOException {
+        FileObject folder = FileUtil.createFolder(FileUtil.getConfigRoot(), JAVA_MIME_FOLDER);
+        FileObject registration = folder.createData(strategyClass.getSimpleName(), "instance");
+        registration.setAttribute("instanceClass", strategyClass.getName());
+        return registration;
+    }
+
+    private static void waitForStrategy(Class<? extends SelectionStrategy> strategyClass)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + REGISTRATION_TIMEOUT;
+        while (!strategyClass.isInstance(SelectionFactory.findStrategy(JavaTokenId.PUBLIC))) {
+            assertTrue("Strategy not registered: " + strategyClass.getName(),
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private void actionPerformed() {
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        selector.waitFinished(editor);
+    }
+
+    /**
+     * Selects from the start of the document to the end of a {@code public} keyword.
+     */
+    public static final class PublicToStartStrategy implements SelectionStrategy {
+
+        @Override
+        public Set<JavaTokenId> getTokenIds() {
+            return EnumSet.of(JavaTokenId.PUBLIC);
+        }
+
+        @Override
+        public void select(SelectionContext context) {
+            TokenSequence<?> tokenSequence = context.getTokenSequence();
+            context.setSelectedRange(new SelectionRange(
+                    0, tokenSequence.offset() + tokenSequence.token().length(), Direction.FORWARD));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import com.github.isarthur.netbeans.editor.textselector.settings.Settings;
+import java.awt.event.ActionEvent;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.openide.util.NbPreferences;
+
+/**
+ *
+ * @author Arthur Sadykov
+ */
+public class SelectionPrefetcherTest extends SelectionTestCase {
+
+    private static final String SOURCE = "public class Test { public void test() { s = i & k; } }";
+    private SelectionPrefetcher prefetcher;
+    private TextSelector selector;
+
+    public SelectionPrefetcherTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SelectionPrefetcherTest.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        NbPreferences.forModule(Settings.class).putBoolean("prefetch", true);
+        NbPreferences.forModule(Settings.class).putInt("prefetchDelay", 0);
+        prefetcher = new SelectionPrefetcher();
+        selector = new TextSelector();
+        setText(SOURCE);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        prefetcher.attach(null);
+        NbPreferences.forModule(Settings.class).remove("prefetch");
+        NbPreferences.forModule(Settings.class).remove("prefetchDelay");
+        super.tearDown();
+    }
+
+    public void testPrefetchedLadderIsServedOnNextPress() {
+        prefetch(50);
+        actionPerformed();
+        assertEquals(SelectionTiming.Origin.LADDER, selector.getLastTiming(editor).getOrigin());
+        assertNotNull(editor.getSelectedText());
+    }
+
+    public void testEditDiscardsPrefetchedLadder() throws BadLocationException {
+        prefetch(50);
+        document.insertString(document.getLength(), " ", null);
+        actionPerformed();
+        assertNotSame(SelectionTiming.Origin.LADDER, selector.getLastTiming(editor).getOrigin());
+    }
+
+    public void testCaretMoveDiscardsPrefetchedLadder() {
+        prefetch(50);
+        prefetcher.attach(null);
+        editor.setCaretPosition(46);
+        actionPerformed();
+        assertNotSame(SelectionTiming.Origin.LADDER, selector.getLastTiming(editor).getOrigin());
+    }
+
+    private void prefetch(int caretPosition) {
+        prefetcher.attach(editor);
+        editor.setCaretPosition(caretPosition);
+        prefetcher.waitFinished();
+    }
+
+    private void actionPerformed() {
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        selector.waitFinished(editor);
+    }
+}
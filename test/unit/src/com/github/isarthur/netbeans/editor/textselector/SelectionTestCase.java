@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import javax.swing.JEditorPane;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.EditorKit;
+import junit.framework.Test;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.java.source.CompilationController;
+import org.netbeans.api.java.source.JavaSource;
+import org.netbeans.api.java.source.Task;
+import org.netbeans.api.lexer.Language;
+import org.netbeans.junit.NbModuleSuite;
+import org.netbeans.junit.NbTestCase;
+import org.netbeans.modules.editor.NbEditorKit;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Base of the benchmarks and measuring tests. Sets up a Java editor the same way {@link TextSelectorTest} does and
+ * provides the helpers to replace its text, run a task on the parsed source and read the number of bytes allocated by
+ * the current thread.
+ *
+ * @author Arthur Sadykov
+ */
+public abstract class SelectionTestCase extends NbTestCase {
+
+    private static final String JAVA_CLUSTER = "java";
+    private static final String IDE_CLUSTER = "ide";
+    private static final String EXTIDE_CLUSTER = "extide";
+    private static final String TEST_FILE = "Test.java";
+    private static final String JAVA_MIME_TYPE = "text/x-java";
+    private static final String MIME_TYPE = "mimeType";
+    protected JEditorPane editor;
+    protected Document document;
+    protected FileObject testFile;
+
+    protected SelectionTestCase(String testName) {
+        super(testName);
+    }
+
+    protected static Test createSuite(Class<? extends NbTestCase> testClass) {
+        return NbModuleSuite.createConfiguration(testClass)
+                .clusters(EXTIDE_CLUSTER)
+                .clusters(IDE_CLUSTER)
+                .clusters(JAVA_CLUSTER)
+                .gui(false)
+                .suite();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        clearWorkDir();
+        testFile = FileUtil.toFileObject(getWorkDir()).createData(TEST_FILE);
+        EditorKit kit = new NbEditorKit();
+        editor = new JEditorPane();
+        editor.setEditorKit(kit);
+        document = editor.getDocument();
+        document.putProperty(Document.StreamDescriptionProperty, testFile);
+        document.putProperty(MIME_TYPE, JAVA_MIME_TYPE);
+        document.putProperty(Language.class, JavaTokenId.language());
+        document.putProperty(JavaSource.class, new WeakReference<>(JavaSource.forFileObject(testFile)));
+    }
+
+    @Override
+    protected boolean runInEQ() {
+        return true;
+    }
+
+    /**
+     * Replaces the text of the document and of the file behind it.
+     */
+    protected void setText(String text) throws BadLocationException, IOException {
+        document.remove(0, document.getLength());
+        document.insertString(0, text, null);
+        try ( OutputStream out = testFile.getOutputStream();  Writer writer = new OutputStreamWriter(out)) {
+            writer.append(text);
+        }
+    }
+
+    protected void runWhenParsed(Task<CompilationController> task) throws IOException {
+        JavaSource.forDocument(document).runUserActionTask(controller -> {
+            controller.toPhase(JavaSource.Phase.PARSED);
+            task.run(controller);
+        }, true);
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far
+     */
+    protected static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
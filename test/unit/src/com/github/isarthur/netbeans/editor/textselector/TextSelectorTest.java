@@ -15,6 +15,11 @@
  */
 package com.github.isarthur.netbeans.editor.textselector;
 
+import com.github.isarthur.netbeans.editor.textselector.cache.SpanIndex;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -1063,6 +1068,20 @@ public class TextSelectorTest extends NbTestCase {
                 getSelectedText());
     }
 
+    public void testIfWithoutBracesSelectsOnlyThenStatement() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { if (x) return; y = 1; { z = 2; } } }");
+        setCaretPosition(43);
+        actionPerformed();
+        assertEquals("if (x) return;", getSelectedText());
+    }
+
+    public void testElseIfWithoutBracesSelectsOnlyNestedThenStatement() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { if (a) { } else if (b) c(); else { d(); } } }");
+        setCaretPosition(56);
+        actionPerformed();
+        assertEquals("else if (b) c();", getSelectedText());
+    }
+
     public void testRightParenthesisSelectionOfIfStatementInBackwardDirection() throws BadLocationException, IOException {
         setText(
                 "public class Test {\n"
@@ -1421,6 +1440,14 @@ public class TextSelectorTest extends NbTestCase {
                 getSelectedText());
     }
 
+    public void testTryWithResourcesSelectsTryBlockInsteadOfLambdaBody() throws BadLocationException, IOException {
+        setText("public class Test { public void test() throws Exception { "
+                + "try (AutoCloseable c = () -> { }) { c.close(); } } }");
+        setCaretPosition(61);
+        actionPerformed();
+        assertEquals("try (AutoCloseable c = () -> { }) { c.close(); }", getSelectedText());
+    }
+
     public void testAmpSelectionInBackwardDirection() throws BadLocationException, IOException {
         setText("public class Test { public void test() { s = i & k; } }");
         setCaretPosition(50);
@@ -1815,6 +1842,234 @@ public class TextSelectorTest extends NbTestCase {
         assertEquals("b % c", getSelectedText());
     }
 
+    public void testNewKeywordSelectsEnclosingNewClass() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { o = new Object(); } }");
+        setCaretPosition(45);
+        actionPerformed();
+        assertEquals("new Object()", getSelectedText());
+    }
+
+    public void testLambdaArrowSelectsEnclosingLambda() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { r = () -> 1; } }");
+        setCaretPosition(50);
+        actionPerformed();
+        assertEquals("() -> 1", getSelectedText());
+    }
+
+    public void testMemberReferenceSelectsEnclosingMemberReference() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { r = String::valueOf; } }");
+        setCaretPosition(53);
+        actionPerformed();
+        assertEquals("String::valueOf", getSelectedText());
+    }
+
+    public void testSelectionStateIsKeptPerEditor() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { if (x) return; } }");
+        JEditorPane clone = new JEditorPane();
+        clone.setEditorKit(new NbEditorKit());
+        clone.setDocument(document);
+        setCaretPosition(43);
+        actionPerformed();
+        assertEquals("if (x) return;", getSelectedText());
+        assertNotNull(selector.getLastTiming(editor));
+        assertNull(selector.getLastTiming(clone));
+        assertNull(clone.getSelectedText());
+    }
+
+    public void testPressNotifiesCaretListenersOnce() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { if (x) return; } }");
+        setCaretPosition(43);
+        int[] caretUpdates = new int[1];
+        editor.addCaretListener(event -> caretUpdates[0]++);
+        actionPerformed();
+        assertEquals("if (x) return;", getSelectedText());
+        assertEquals(41, getCaretPosition());
+        assertEquals(1, caretUpdates[0]);
+    }
+
+    public void testShrinkSelectionRestoresPreviousSelections() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { s = i & k; } }");
+        setCaretPosition(50);
+        actionPerformed();
+        String firstSelection = getSelectedText();
+        actionPerformed();
+        assertEquals("i & k", getSelectedText());
+        shrink();
+        assertEquals(firstSelection, getSelectedText());
+        shrink();
+        assertNull(getSelectedText());
+        assertEquals(50, getCaretPosition());
+        shrink();
+        assertEquals(50, getCaretPosition());
+    }
+
+    public void testShrinkSelectionAfterEditDoesNothing() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { s = i & k; } }");
+        setCaretPosition(50);
+        actionPerformed();
+        actionPerformed();
+        document.insertString(0, " ", null);
+        shrink();
+        assertEquals("i & k", getSelectedText());
+    }
+
+    public void testShrinkSelectionOutsideJavaDocumentDoesNothing() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { s = i & k; } }");
+        setCaretPosition(50);
+        actionPerformed();
+        actionPerformed();
+        document.putProperty(MIME_TYPE, "text/plain");
+        try {
+            shrink();
+            assertEquals("i & k", getSelectedText());
+        } finally {
+            document.putProperty(MIME_TYPE, JAVA_MIME_TYPE);
+        }
+        shrink();
+        assertFalse("i & k".equals(getSelectedText()));
+    }
+
+    public void testNewerPressSupersedesPressInFlight() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { s = i & k; } }");
+        setCaretPosition(50);
+        int[] caretUpdates = new int[1];
+        editor.addCaretListener(event -> caretUpdates[0]++);
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        actionPerformed();
+        String selectedText = getSelectedText();
+        assertNotNull(selectedText);
+        assertEquals(1, caretUpdates[0]);
+        selector.waitFinished(editor);
+        assertEquals(selectedText, getSelectedText());
+        assertEquals(1, caretUpdates[0]);
+    }
+
+    public void testEditCancelsPressInFlight() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { s = i & k; } }");
+        setCaretPosition(50);
+        selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        document.insertString(document.getLength(), " ", null);
+        selector.waitFinished(editor);
+        assertNull(getSelectedText());
+        assertNull(selector.getLastTiming(editor));
+    }
+
+    public void testRepeatedSelectionOnUnchangedDocumentSelectsSameRanges() throws BadLocationException, IOException {
+        setText(
+                "class Test {\n"
+                + "    void test() {\n"
+                + "        int count;\n"
+                + "        return;\n"
+                + "    }\n"
+                + "}");
+        setCaretPosition(65);
+        actionPerformed();
+        assertEquals("return;", getSelectedText());
+        actionPerformed();
+        assertEquals("int count;\n        return;", getSelectedText());
+        setCaretPosition(65);
+        actionPerformed();
+        assertEquals("return;", getSelectedText());
+        actionPerformed();
+        assertEquals("int count;\n        return;", getSelectedText());
+        document.insertString(13, "\n", null);
+        setCaretPosition(66);
+        actionPerformed();
+        assertEquals("return;", getSelectedText());
+        actionPerformed();
+        assertEquals("int count;\n        return;", getSelectedText());
+    }
+
+    public void testSelectionAfterEditInsideEnclosingRangeSelectsUpdatedRanges()
+            throws BadLocationException, IOException {
+        setText(
+                "class Test {\n"
+                + "    void test() {\n"
+                + "        int count;\n"
+                + "        return;\n"
+                + "    }\n"
+                + "}");
+        setCaretPosition(65);
+        actionPerformed();
+        actionPerformed();
+        assertEquals("int count;\n        return;", getSelectedText());
+        document.insertString(48, "er", null);
+        setCaretPosition(67);
+        actionPerformed();
+        assertEquals("return;", getSelectedText());
+        actionPerformed();
+        assertEquals("int counter;\n        return;", getSelectedText());
+    }
+
+    public void testSpanIndexFindsSamePathsAsTreeUtilities() throws BadLocationException, IOException {
+        setText(
+                "package test;\n"
+                + "import java.util.*;\n"
+                + "@SuppressWarnings(value = \"unchecked\")\n"
+                + "public class Test<T extends Comparable<T>> {\n"
+                + "    private static final int[] VALUES = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};\n"
+                + "    private final Map<String, List<T>> map = new HashMap<>();\n"
+                + "    public <E> List<E> test(E element, int count) throws Exception {\n"
+                + "        for (int i = 0; i < count; i++) { count -= i; }\n"
+                + "        for (int value : VALUES) count += value;\n"
+                + "        if (count > 0) { count--; } else if (count < 0) count++; else { return null; }\n"
+                + "        try { synchronized (this) { count = (int) count >> 1; } }\n"
+                + "        catch (RuntimeException ex) { throw ex; } finally { ; }\n"
+                + "        Runnable r = () -> { while (count > 0) { break; } };\n"
+                + "        do { count = count >>> 2; } while (count > 0);\n"
+                + "        return Collections.singletonList(element);\n"
+                + "    }\n"
+                + "    class Inner { int x; }\n"
+                + "}");
+        int length = document.getLength();
+        JavaSource.forDocument(document).runUserActionTask(controller -> {
+            controller.toPhase(JavaSource.Phase.PARSED);
+            SpanIndex index = SpanIndex.get(controller);
+            SourcePositions sourcePositions = controller.getTrees().getSourcePositions();
+            CompilationUnitTree compilationUnit = controller.getCompilationUnit();
+            for (int position = 0; position <= length; position++) {
+                TreePath expected = controller.getTreeUtilities().pathFor(position);
+                int node = index.pathFor(controller.getTokenHierarchy(), position);
+                while (expected != null) {
+                    Tree tree = expected.getLeaf();
+                    String message = "position " + position + ", " + tree.getKind();
+                    assertEquals(message, tree.getKind(), index.getKind(node));
+                    assertEquals(message, sourcePositions.getStartPosition(compilationUnit, tree),
+                            index.getStart(node));
+                    assertEquals(message, sourcePositions.getEndPosition(compilationUnit, tree),
+                            index.getEnd(node));
+                    expected = expected.getParentPath();
+                    node = index.getParent(node);
+                }
+                assertEquals("position " + position, -1, node);
+            }
+        }, true);
+    }
+
+    public void testCaretInsideBlockCommentSelectsComment() throws BadLocationException, IOException {
+        setText("public class Test { public void test() { /* note */ int i = 0; } }");
+        setCaretPosition(45);
+        actionPerformed();
+        assertEquals("/* note */", getSelectedText());
+        assertEquals(SelectionTiming.Origin.TOKENS, selector.getLastTiming(editor).getOrigin());
+        actionPerformed();
+        String selectedText = getSelectedText();
+        assertTrue(selectedText, selectedText.contains("/* note */") && selectedText.length() > 10);
+    }
+
+    public void testCaretInsideLineCommentSelectsCommentWithoutLineBreak() throws BadLocationException, IOException {
+        setText(
+                "class Test {\n"
+                + "    void test() {\n"
+                + "        // note\n"
+                + "        return;\n"
+                + "    }\n"
+                + "}");
+        setCaretPosition(43);
+        actionPerformed();
+        assertEquals("// note", getSelectedText());
+    }
+
     private void setText(String text) throws BadLocationException, IOException {
         document.insertString(0, text, null);
         try ( OutputStream out = testFile.getOutputStream();  Writer writer = new OutputStreamWriter(out)) {
@@ -1828,6 +2083,11 @@ public class TextSelectorTest extends NbTestCase {
 
     private void actionPerformed() {
         selector.actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
+        selector.waitFinished(editor);
+    }
+
+    private void shrink() {
+        new SelectionShrinker().actionPerformed(new ActionEvent(editor, ActionEvent.ACTION_PERFORMED, ""), editor);
     }
 
     private String getSelectedText() {
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.cache;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTestCase;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.text.BadLocationException;
+import junit.framework.Test;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+
+/**
+ * @author Arthur Sadykov
+ */
+public class SpanIndexStoreTest extends SelectionTestCase {
+
+    private static final String SOURCE = "public class Test { private int i = 0; void test() { i++; } }";
+
+    public SpanIndexStoreTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return createSuite(SpanIndexStoreTest.class);
+    }
+
+    public void testStoredIndexIsLoadedForSameText() throws BadLocationException, IOException {
+        setText(SOURCE);
+        SpanIndex index = store();
+        SpanIndex loaded = SpanIndexStore.load(document, DocumentUtilities.getDocumentVersion(document), () -> SOURCE);
+        assertNotNull(loaded);
+        assertEquals(index.size(), loaded.size());
+        for (int node = 0; node < index.size(); node++) {
+            assertEquals(index.getKind(node), loaded.getKind(node));
+            assertEquals(index.getStart(node), loaded.getStart(node));
+            assertEquals(index.getEnd(node), loaded.getEnd(node));
+            assertEquals(index.getParent(node), loaded.getParent(node));
+            assertEquals(index.getNameStart(node), loaded.getNameStart(node));
+            assertEquals(index.getNameEnd(node), loaded.getNameEnd(node));
+            assertEquals(index.getParameterStart(node), loaded.getParameterStart(node));
+            assertEquals(index.getParameterEnd(node), loaded.getParameterEnd(node));
+        }
+    }
+
+    public void testIndexIsNotLoadedForDifferentText() throws BadLocationException, IOException {
+        setText(SOURCE);
+        store();
+        long version = DocumentUtilities.getDocumentVersion(document);
+        AtomicInteger requests = new AtomicInteger();
+        assertNull(SpanIndexStore.load(document, version, () -> {
+            requests.incrementAndGet();
+            return SOURCE + " ";
+        }));
+        assertNull(SpanIndexStore.load(document, version, () -> {
+            requests.incrementAndGet();
+            return SOURCE;
+        }));
+        assertEquals("The text of a version is hashed once", 1, requests.get());
+    }
+
+    public void testUnreadableIndexIsDeleted() throws BadLocationException, IOException {
+        setText(SOURCE);
+        File file = SpanIndexStore.getFile(SOURCE);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        assertNull(SpanIndexStore.load(document, DocumentUtilities.getDocumentVersion(document), () -> SOURCE));
+        assertFalse(file.exists());
+    }
+
+    public void testLeastRecentlyUsedIndexesAreEvicted() throws BadLocationException, IOException {
+        String[] sources = {SOURCE, SOURCE + "\n", SOURCE + "\n\n"};
+        File[] files = new File[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            setText(sources[i]);
+            store();
+            files[i] = SpanIndexStore.getFile(sources[i]);
+            assertTrue(files[i].isFile());
+        }
+        files[0].setLastModified(1000);
+        files[1].setLastModified(2000);
+        long size = 0;
+        for (File file : files[0].getParentFile().listFiles((dir, name) -> name.endsWith(".bin"))) {
+            size += file.length();
+        }
+        SpanIndexStore.evict(size - files[0].length());
+        assertFalse(files[0].exists());
+        assertTrue(files[1].isFile());
+        assertTrue(files[2].isFile());
+    }
+
+    private SpanIndex store() throws IOException {
+        SpanIndex[] index = new SpanIndex[1];
+        runWhenParsed(controller -> {
+            index[0] = SpanIndex.get(controller);
+            SpanIndexStore.store(controller.getSnapshot().getSource(), index[0], controller.getText());
+        });
+        SpanIndexStore.flush();
+        return index[0];
+    }
+}
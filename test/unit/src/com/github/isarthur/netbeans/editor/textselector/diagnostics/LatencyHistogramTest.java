@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.diagnostics;
+
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * @author Arthur Sadykov
+ */
+public class LatencyHistogramTest extends NbTestCase {
+
+    private static final double DELTA = 1e-9;
+    private LatencyHistogram histogram;
+
+    public LatencyHistogramTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        histogram = new LatencyHistogram();
+    }
+
+    public void testEmptyHistogram() {
+        LatencyHistogram.Summary summary = histogram.getSummary();
+        assertEquals(0, summary.getCount());
+        assertEquals(0, summary.getMeanMicros(), DELTA);
+        assertEquals(0, summary.getP50Micros(), DELTA);
+        assertEquals(0, summary.getP99Micros(), DELTA);
+    }
+
+    public void testBucketBoundaries() {
+        assertP50(0, 0.002);
+        assertP50(1, 0.002);
+        assertP50(1023, 1.024);
+        assertP50(1024, 2.048);
+        assertP50(2047, 2.048);
+        assertP50(Long.MAX_VALUE, (1L << 40) / 1000.0);
+    }
+
+    public void testPercentiles() {
+        for (int i = 0; i < 95; i++) {
+            histogram.record(1000);
+        }
+        for (int i = 0; i < 5; i++) {
+            histogram.record(1_000_000);
+        }
+        LatencyHistogram.Summary summary = histogram.getSummary();
+        assertEquals(100, summary.getCount());
+        assertEquals(50.95, summary.getMeanMicros(), DELTA);
+        assertEquals(1.024, summary.getP50Micros(), DELTA);
+        assertEquals(1.024, summary.getP95Micros(), DELTA);
+        assertEquals(1048.576, summary.getP99Micros(), DELTA);
+    }
+
+    public void testReset() {
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getSummary().getCount());
+        assertEquals(0, histogram.getSummary().getP50Micros(), DELTA);
+    }
+
+    private void assertP50(long nanos, double expectedMicros) {
+        histogram.reset();
+        histogram.record(nanos);
+        assertEquals("p50 of " + nanos + " ns", expectedMicros, histogram.getSummary().getP50Micros(), DELTA);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Arthur Sadykov.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.isarthur.netbeans.editor.textselector.ui;
+
+import com.github.isarthur.netbeans.editor.textselector.SelectionTiming;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * @author Arthur Sadykov
+ */
+public class SelectionLatencyStatusLineTest extends NbTestCase {
+
+    private SelectionLatencyStatusLine.LatencyIndicator indicator;
+
+    public SelectionLatencyStatusLineTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        indicator = new SelectionLatencyStatusLine.LatencyIndicator();
+    }
+
+    public void testNothingIsShownBeforeFirstPress() {
+        assertNull(indicator.getText());
+    }
+
+    public void testTimingIsFormattedInTenthsOfMillisecond() {
+        assertText("12.3 ms, parse", SelectionTiming.Origin.PARSER, 12_000_000, 300_000, 45_678);
+        assertText("0.0 ms, cached", SelectionTiming.Origin.LADDER, 0, 50_000, 0);
+        assertText("0.1 ms, tokens", SelectionTiming.Origin.TOKENS, 0, 100_000, 0);
+        assertText("1234.5 ms, stored index", SelectionTiming.Origin.STORED_INDEX, 1_234_567_890, 0, 0);
+    }
+
+    public void testLastPressReplacesPreviousOne() {
+        indicator.update(new SelectionTiming(SelectionTiming.Origin.PARSER, null, null, 98_760_000, 0, 0));
+        indicator.update(new SelectionTiming(SelectionTiming.Origin.LADDER, null, null, 0, 0, 200_000));
+        assertEquals("0.2 ms, cached", indicator.getText());
+    }
+
+    private void assertText(String expected, SelectionTiming.Origin origin, long waitTime, long computeTime,
+            long applyTime) {
+        indicator.update(new SelectionTiming(origin, null, null, waitTime, computeTime, applyTime));
+        assertEquals(expected, indicator.getText());
+    }
+}